@@ -137,10 +137,12 @@ public class BranchDiscoveryTrait extends SCMSourceTrait {
         switch (strategyId) {
             case 1:
                 ctx.wantOriginMRs(true);
+                ctx.wantBranchMRs(true);
                 ctx.withFilter(new ExcludeOriginMRBranchesSCMHeadFilter(getBranchesAlwaysIncludedRegexPattern()));
                 break;
             case 2:
                 ctx.wantOriginMRs(true);
+                ctx.wantBranchMRs(true);
                 ctx.withFilter(new OnlyOriginMRBranchesSCMHeadFilter(getBranchesAlwaysIncludedRegexPattern()));
                 break;
             case 3:
@@ -280,7 +282,7 @@ public class BranchDiscoveryTrait extends SCMSourceTrait {
                     return false;
                 }
 
-                for (MergeRequest m : ((GitLabSCMSourceRequest) request).getMergeRequests()) {
+                for (MergeRequest m : ((GitLabSCMSourceRequest) request).getBranchFilterMergeRequests()) {
                     // only match if the merge request is an origin merge request
                     if (m.getSourceProjectId().equals(m.getTargetProjectId())
                             && m.getSourceBranch().equalsIgnoreCase(head.getName())) {
@@ -324,12 +326,14 @@ public class BranchDiscoveryTrait extends SCMSourceTrait {
                     return false;
                 }
 
-                for (MergeRequest m : ((GitLabSCMSourceRequest) request).getMergeRequests()) {
+                for (MergeRequest m : ((GitLabSCMSourceRequest) request).getBranchFilterMergeRequests()) {
+                    // only match if the merge request is an origin merge request
                     if (m.getSourceProjectId().equals(m.getTargetProjectId())
-                            && !m.getSourceBranch().equalsIgnoreCase(head.getName())) {
-                        return true;
+                            && m.getSourceBranch().equalsIgnoreCase(head.getName())) {
+                        return false;
                     }
                 }
+                return true;
             }
             return false;
         }
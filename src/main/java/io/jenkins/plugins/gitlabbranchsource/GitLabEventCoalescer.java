@@ -0,0 +1,107 @@
+package io.jenkins.plugins.gitlabbranchsource;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.scm.api.SCMHeadEvent;
+import jenkins.util.Timer;
+
+/**
+ * Coalesces the delayed {@link SCMHeadEvent}s fired for the same head so that a burst of pushes to a branch, or of
+ * updates to a merge request, results in a single event carrying the newest payload. A newer event postpones the
+ * pending one by the trigger delay, within twice the trigger delay of the first event so that a continuous stream of
+ * events still fires.
+ */
+public final class GitLabEventCoalescer {
+
+    public static final Logger LOGGER = Logger.getLogger(GitLabEventCoalescer.class.getName());
+
+    private static final ConcurrentMap<String, Pending> pending = new ConcurrentHashMap<>();
+
+    private static final AtomicLong coalesced = new AtomicLong();
+
+    private static final AtomicLong fired = new AtomicLong();
+
+    private GitLabEventCoalescer() {}
+
+    /**
+     * Fires the event after a delay unless a newer event for the same key replaces it in the meantime.
+     *
+     * @param key   identifies the head, typically the server, project, head name and kind of event.
+     * @param event the event.
+     * @param delay the delay before the event is fired.
+     * @param unit  the unit of the delay.
+     */
+    public static void fireLater(@NonNull String key, @NonNull SCMHeadEvent<?> event, long delay, TimeUnit unit) {
+        long delayMillis = Math.max(0, unit.toMillis(delay));
+        long now = System.currentTimeMillis();
+        Pending created = new Pending(event, now, now + delayMillis);
+        Pending entry = pending.compute(key, (k, existing) -> {
+            if (existing == null) {
+                return created;
+            }
+            existing.event = event;
+            existing.deadline = Math.min(now + delayMillis, existing.created + 2 * delayMillis);
+            coalesced.incrementAndGet();
+            LOGGER.log(Level.FINE, "Coalesced event for {0}", key);
+            return existing;
+        });
+        if (entry == created) {
+            schedule(key, entry, delayMillis);
+        }
+    }
+
+    /**
+     * @return the number of events replaced by a newer event for the same head.
+     */
+    public static long getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    /**
+     * @return the number of events fired.
+     */
+    public static long getFiredCount() {
+        return fired.get();
+    }
+
+    /**
+     * @return the number of events waiting to be fired.
+     */
+    public static int getPendingCount() {
+        return pending.size();
+    }
+
+    private static void schedule(String key, Pending entry, long delayMillis) {
+        Timer.get().schedule(() -> fire(key, entry), delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private static void fire(String key, Pending entry) {
+        long remaining = entry.deadline - System.currentTimeMillis();
+        if (remaining > 0) {
+            // postponed by a newer event
+            schedule(key, entry, remaining);
+            return;
+        }
+        if (pending.remove(key, entry)) {
+            fired.incrementAndGet();
+            SCMHeadEvent.fireNow(entry.event);
+        }
+    }
+
+    private static class Pending {
+        private final long created;
+        private volatile SCMHeadEvent<?> event;
+        private volatile long deadline;
+
+        Pending(SCMHeadEvent<?> event, long created, long deadline) {
+            this.event = event;
+            this.created = created;
+            this.deadline = deadline;
+        }
+    }
+}
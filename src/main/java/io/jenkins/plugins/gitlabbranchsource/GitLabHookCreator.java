@@ -1,11 +1,12 @@
 package io.jenkins.plugins.gitlabbranchsource;
 
 import static io.jenkins.plugins.gitlabbranchsource.helpers.GitLabHelper.getPrivateTokenAsPlainText;
-import static io.jenkins.plugins.gitlabbranchsource.helpers.GitLabHelper.getProxyConfig;
 
 import com.cloudbees.plugins.credentials.common.StandardCredentials;
 import com.damnhandy.uri.template.UriTemplate;
 import com.damnhandy.uri.template.UriTemplateBuilder;
+import io.jenkins.plugins.gitlabbranchsource.helpers.GitLabApiPool;
+import io.jenkins.plugins.gitlabbranchsource.helpers.GitLabRateLimiter;
 import io.jenkins.plugins.gitlabserverconfig.servers.GitLabServer;
 import io.jenkins.plugins.gitlabserverconfig.servers.GitLabServers;
 import java.net.MalformedURLException;
@@ -96,11 +97,8 @@ public class GitLabHookCreator {
         }
         if (credentials != null) {
             try {
-                GitLabApi gitLabApi = new GitLabApi(
-                        server.getServerUrl(),
-                        getPrivateTokenAsPlainText(credentials),
-                        null,
-                        getProxyConfig(server.getServerUrl()));
+                GitLabApi gitLabApi =
+                        GitLabApiPool.get(server.getServerUrl(), getPrivateTokenAsPlainText(credentials));
                 createWebHookWhenMissing(gitLabApi, source.getProjectPath(), hookUrl, secretToken);
             } catch (GitLabApiException e) {
                 LOGGER.log(
@@ -139,11 +137,8 @@ public class GitLabHookCreator {
 
     public static void createSystemHookWhenMissing(GitLabServer server, StandardCredentials credentials) {
         try {
-            GitLabApi gitLabApi = new GitLabApi(
-                    server.getServerUrl(),
-                    getPrivateTokenAsPlainText(credentials),
-                    null,
-                    getProxyConfig(server.getServerUrl()));
+            GitLabApi gitLabApi =
+                    GitLabApiPool.get(server.getServerUrl(), getPrivateTokenAsPlainText(credentials));
             createSystemHookWhenMissing(server, gitLabApi);
         } catch (GitLabApiException e) {
             LOGGER.log(Level.INFO, "User is not admin so cannot set system hooks", e);
@@ -230,14 +225,15 @@ public class GitLabHookCreator {
                 .findFirst()
                 .orElseGet(GitLabHookCreator::createWebHook);
         if (projectHook.getId() == null) {
-            gitLabApi.getProjectApi().addHook(project, hookUrl, projectHook, true, secretToken);
+            GitLabRateLimiter.get(gitLabApi)
+                    .call(() -> gitLabApi.getProjectApi().addHook(project, hookUrl, projectHook, true, secretToken));
             return "created";
         }
         // Primarily done due to legacy reason, secret token might not be configured in previous releases. So setting up
         // hook url with the token.
         if (!isTokenEqual(projectHook.getToken(), secretToken)) {
             projectHook.setToken(secretToken);
-            gitLabApi.getProjectApi().modifyHook(projectHook);
+            GitLabRateLimiter.get(gitLabApi).call(() -> gitLabApi.getProjectApi().modifyHook(projectHook));
             return "modified";
         }
         return "already created";
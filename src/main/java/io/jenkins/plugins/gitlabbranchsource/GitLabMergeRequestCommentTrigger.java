@@ -13,7 +13,6 @@ import jenkins.model.ParameterizedJobMixIn;
 import jenkins.scm.api.SCMHeadObserver;
 import jenkins.scm.api.SCMSource;
 import jenkins.scm.api.SCMSourceOwner;
-import jenkins.scm.api.SCMSourceOwners;
 import org.gitlab4j.api.models.AccessLevel;
 import org.gitlab4j.api.webhook.NoteEvent;
 
@@ -35,7 +34,9 @@ public class GitLabMergeRequestCommentTrigger extends AbstractGitLabJobTrigger<N
             final String commentUrl = getPayload().getObjectAttributes().getUrl();
             try (ACLContext ctx = ACL.as(ACL.SYSTEM)) {
                 boolean jobFound = false;
-                for (final SCMSourceOwner owner : SCMSourceOwners.all()) {
+                // only the owners with a source for the target project can have a matching job
+                for (final SCMSourceOwner owner : GitLabProjectIndex.getOwners(
+                        null, getPayload().getMergeRequest().getTargetProjectId())) {
                     LOGGER.log(Level.FINEST, String.format("Source Owner: %s", owner.getFullDisplayName()));
                     // It's better to check instance of parent instead of searching for » symbol
                     if (owner.getParent() instanceof ComputedFolder) {
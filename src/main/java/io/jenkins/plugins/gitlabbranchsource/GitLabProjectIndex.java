@@ -0,0 +1,214 @@
+package io.jenkins.plugins.gitlabbranchsource;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.XmlFile;
+import hudson.model.Item;
+import hudson.model.ItemGroup;
+import hudson.model.Saveable;
+import hudson.model.listeners.ItemListener;
+import hudson.model.listeners.SaveableListener;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.model.Jenkins;
+import jenkins.scm.api.SCMSource;
+import jenkins.scm.api.SCMSourceOwner;
+import jenkins.scm.api.SCMSourceOwners;
+
+/**
+ * A controller wide index of the {@link SCMSourceOwner}s having a {@link GitLabSCMSource}, keyed by project id, so
+ * that routing a web hook to the jobs of a project does not walk every item. The index is built on first use and then
+ * maintained as items are saved, renamed and deleted.
+ */
+public final class GitLabProjectIndex {
+
+    public static final Logger LOGGER = Logger.getLogger(GitLabProjectIndex.class.getName());
+
+    /**
+     * The full names of the owners by project id.
+     */
+    private static final ConcurrentMap<Long, Set<String>> owners = new ConcurrentHashMap<>();
+
+    /**
+     * The project ids by owner full name, to update the index when an owner changes.
+     */
+    private static final ConcurrentMap<String, Set<Long>> projects = new ConcurrentHashMap<>();
+
+    private static volatile boolean initialized;
+
+    private GitLabProjectIndex() {}
+
+    /**
+     * Returns the owners with a source for a project, callers should still check the sources they are interested in
+     * as the index can lag behind a configuration change by a few moments.
+     *
+     * @param serverName the name of the server hosting the project or {@code null} for any server.
+     * @param projectId  the id of the project.
+     * @return the owners, which may be empty.
+     */
+    @NonNull
+    public static List<SCMSourceOwner> getOwners(@CheckForNull String serverName, @CheckForNull Long projectId) {
+        if (projectId == null) {
+            return Collections.emptyList();
+        }
+        initialize();
+        Set<String> names = owners.get(projectId);
+        if (names == null) {
+            return Collections.emptyList();
+        }
+        List<SCMSourceOwner> result = new ArrayList<>(names.size());
+        try (ACLContext ctx = ACL.as2(ACL.SYSTEM2)) {
+            for (String name : names) {
+                SCMSourceOwner owner = Jenkins.get().getItemByFullName(name, SCMSourceOwner.class);
+                if (owner != null && (serverName == null || hasSource(owner, serverName, projectId))) {
+                    result.add(owner);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static boolean hasSource(SCMSourceOwner owner, String serverName, Long projectId) {
+        for (SCMSource source : owner.getSCMSources()) {
+            if (source instanceof GitLabSCMSource
+                    && serverName.equals(((GitLabSCMSource) source).getServerName())
+                    && projectId.equals(((GitLabSCMSource) source).getProjectId())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void initialize() {
+        if (initialized) {
+            return;
+        }
+        synchronized (GitLabProjectIndex.class) {
+            if (initialized) {
+                return;
+            }
+            try (ACLContext ctx = ACL.as2(ACL.SYSTEM2)) {
+                for (SCMSourceOwner owner : SCMSourceOwners.all()) {
+                    index(owner);
+                }
+            }
+            initialized = true;
+            LOGGER.log(Level.FINE, "Indexed {0} owners of GitLab sources", projects.size());
+        }
+    }
+
+    /**
+     * Forgets the whole index, it is rebuilt on next use.
+     */
+    static synchronized void reset() {
+        initialized = false;
+        owners.clear();
+        projects.clear();
+    }
+
+    static synchronized void index(@NonNull SCMSourceOwner owner) {
+        Set<Long> ids = new HashSet<>();
+        for (SCMSource source : owner.getSCMSources()) {
+            if (source instanceof GitLabSCMSource && ((GitLabSCMSource) source).getProjectId() != null) {
+                ids.add(((GitLabSCMSource) source).getProjectId());
+            }
+        }
+        String name = owner.getFullName();
+        Set<Long> previous = ids.isEmpty() ? projects.remove(name) : projects.put(name, ids);
+        if (previous != null) {
+            for (Long id : previous) {
+                if (!ids.contains(id)) {
+                    removeOwner(id, name);
+                }
+            }
+        }
+        for (Long id : ids) {
+            owners.computeIfAbsent(id, k -> ConcurrentHashMap.newKeySet()).add(name);
+        }
+    }
+
+    static synchronized void unindex(@NonNull String fullName, boolean descendants) {
+        for (String name : new ArrayList<>(projects.keySet())) {
+            if (name.equals(fullName) || (descendants && name.startsWith(fullName + "/"))) {
+                Set<Long> ids = projects.remove(name);
+                if (ids != null) {
+                    for (Long id : ids) {
+                        removeOwner(id, name);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void removeOwner(Long id, String name) {
+        owners.computeIfPresent(id, (k, names) -> {
+            names.remove(name);
+            return names.isEmpty() ? null : names;
+        });
+    }
+
+    /**
+     * Keeps the index up to date as items are renamed, moved or deleted.
+     */
+    @Extension
+    public static class ItemListenerImpl extends ItemListener {
+
+        @Override
+        public void onLoaded() {
+            reset();
+        }
+
+        @Override
+        public void onCreated(Item item) {
+            if (initialized && item instanceof SCMSourceOwner) {
+                index((SCMSourceOwner) item);
+            }
+        }
+
+        @Override
+        public void onUpdated(Item item) {
+            onCreated(item);
+        }
+
+        @Override
+        public void onDeleted(Item item) {
+            if (initialized) {
+                unindex(item.getFullName(), item instanceof ItemGroup);
+            }
+        }
+
+        @Override
+        public void onLocationChanged(Item item, String oldFullName, String newFullName) {
+            // also notified for each descendant of a renamed or moved folder
+            if (initialized) {
+                unindex(oldFullName, false);
+                onCreated(item);
+            }
+        }
+    }
+
+    /**
+     * Keeps the index up to date as owners are saved, which includes the first time the project id of a source is
+     * resolved.
+     */
+    @Extension
+    public static class SaveableListenerImpl extends SaveableListener {
+
+        @Override
+        public void onChange(Saveable o, XmlFile file) {
+            if (initialized && o instanceof SCMSourceOwner) {
+                index((SCMSourceOwner) o);
+            }
+        }
+    }
+}
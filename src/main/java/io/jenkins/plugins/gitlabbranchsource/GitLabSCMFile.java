@@ -1,10 +1,15 @@
 package io.jenkins.plugins.gitlabbranchsource;
 
 import edu.umd.cs.findbugs.annotations.NonNull;
+import io.jenkins.plugins.gitlabbranchsource.helpers.GitLabFileCache;
+import io.jenkins.plugins.gitlabbranchsource.helpers.GitLabRateLimiter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import jenkins.scm.api.SCMFile;
 import org.gitlab4j.api.GitLabApi;
 import org.gitlab4j.api.GitLabApiException;
@@ -12,18 +17,34 @@ import org.gitlab4j.api.models.TreeItem;
 
 public class GitLabSCMFile extends SCMFile {
 
+    /**
+     * The listing of a directory GitLab answered 404 for, which may also mean that the project or ref cannot be read.
+     */
+    private static final List<TreeItem> NOT_FOUND = Collections.unmodifiableList(new ArrayList<>());
+
     private final GitLabApi gitLabApi;
     private final String projectPath;
     private final String ref;
+    /**
+     * The directory listings fetched so far by path, shared by all the files of a file system.
+     */
+    private final ConcurrentMap<String, List<TreeItem>> trees;
+
     private boolean isDir;
 
     public GitLabSCMFile(GitLabApi gitLabApi, String projectPath, String ref) {
+        this(gitLabApi, projectPath, ref, new ConcurrentHashMap<>());
+    }
+
+    GitLabSCMFile(
+            GitLabApi gitLabApi, String projectPath, String ref, ConcurrentMap<String, List<TreeItem>> trees) {
         super();
         this.gitLabApi = gitLabApi;
         this.isDir = true;
         type(Type.DIRECTORY);
         this.projectPath = projectPath;
         this.ref = ref;
+        this.trees = trees;
     }
 
     private GitLabSCMFile(@NonNull GitLabSCMFile parent, String name, boolean isDir) {
@@ -31,6 +52,7 @@ public class GitLabSCMFile extends SCMFile {
         this.gitLabApi = parent.gitLabApi;
         this.projectPath = parent.projectPath;
         this.ref = parent.ref;
+        this.trees = parent.trees;
         this.isDir = isDir;
     }
 
@@ -39,6 +61,7 @@ public class GitLabSCMFile extends SCMFile {
         this.gitLabApi = parent.gitLabApi;
         this.projectPath = parent.projectPath;
         this.ref = parent.ref;
+        this.trees = parent.trees;
         isDir = type == Type.DIRECTORY;
         type(type);
     }
@@ -55,23 +78,10 @@ public class GitLabSCMFile extends SCMFile {
         if (!this.isDirectory()) {
             throw new IOException("Cannot get children from a regular file");
         }
-        List<TreeItem> treeItems = fetchTree();
+        List<TreeItem> treeItems = fetchTree(getPath());
         List<SCMFile> result = new ArrayList<>(treeItems.size());
         for (TreeItem c : treeItems) {
-            Type t;
-            if (c.getType() == TreeItem.Type.TREE) {
-                t = Type.DIRECTORY;
-            } else if (c.getType() == TreeItem.Type.BLOB) {
-                if ("120000".equals(c.getMode())) {
-                    // File Mode 120000 is a symlink
-                    t = Type.LINK;
-                } else {
-                    t = Type.REGULAR_FILE;
-                }
-            } else {
-                t = Type.OTHER;
-            }
-            result.add(new GitLabSCMFile(this, c.getName(), t));
+            result.add(new GitLabSCMFile(this, c.getName(), toType(c)));
         }
         return result;
     }
@@ -88,26 +98,38 @@ public class GitLabSCMFile extends SCMFile {
         if (isDir) {
             return Type.DIRECTORY;
         }
-        try {
-            gitLabApi.getRepositoryFileApi().getFile(projectPath, getPath(), ref);
-            return Type.REGULAR_FILE;
-        } catch (GitLabApiException e) {
-            if (e.getHttpStatus() != 404) {
-                throw new IOException(e);
+        String cacheKey = GitLabFileCache.getKey(gitLabApi, projectPath, ref, getPath());
+        Type type = GitLabFileCache.getType(cacheKey);
+        if (type != null) {
+            return type;
+        }
+        type = Type.NONEXISTENT;
+        // the type comes from the listing of the parent directory, which also answers for the siblings of the file
+        List<TreeItem> tree = fetchTree(parent().getPath());
+        for (TreeItem item : tree) {
+            if (getName().equals(item.getName())) {
+                type = toType(item);
+                break;
             }
-            try {
-                List<TreeItem> files = gitLabApi.getRepositoryApi().getTree(projectPath, getPath(), ref);
-                if (files.size() == 0) {
-                    return Type.NONEXISTENT;
-                }
-                return Type.DIRECTORY;
-            } catch (GitLabApiException ex) {
-                if (e.getHttpStatus() != 404) {
-                    throw new IOException(e);
-                }
+        }
+        if (tree != NOT_FOUND) {
+            // a 404 may be transient or only apply to these credentials, only a listing is trusted for good
+            GitLabFileCache.putType(cacheKey, type);
+        }
+        return type;
+    }
+
+    private static Type toType(TreeItem item) {
+        if (item.getType() == TreeItem.Type.TREE) {
+            return Type.DIRECTORY;
+        } else if (item.getType() == TreeItem.Type.BLOB) {
+            if ("120000".equals(item.getMode())) {
+                // File Mode 120000 is a symlink
+                return Type.LINK;
             }
+            return Type.REGULAR_FILE;
         }
-        return Type.NONEXISTENT;
+        return Type.OTHER;
     }
 
     @NonNull
@@ -121,18 +143,42 @@ public class GitLabSCMFile extends SCMFile {
     }
 
     private InputStream fetchFile() throws IOException {
+        String cacheKey = GitLabFileCache.getKey(gitLabApi, projectPath, ref, getPath());
+        InputStream cached = GitLabFileCache.getContent(cacheKey);
+        if (cached != null) {
+            return cached;
+        }
+        InputStream content;
         try {
-            return gitLabApi.getRepositoryFileApi().getRawFile(projectPath, ref, getPath());
+            content = GitLabRateLimiter.get(gitLabApi)
+                    .call(() -> gitLabApi.getRepositoryFileApi().getRawFile(projectPath, ref, getPath()));
         } catch (GitLabApiException e) {
             throw new IOException(String.format("%s not found at %s", getPath(), ref));
         }
+        return GitLabFileCache.putContent(cacheKey, content);
     }
 
-    private List<TreeItem> fetchTree() throws IOException {
+    /**
+     * Lists a directory, at most once per file system.
+     *
+     * @param path the path of the directory.
+     * @return the entries of the directory, {@link #NOT_FOUND} if it does not exist.
+     */
+    private List<TreeItem> fetchTree(String path) throws IOException {
+        List<TreeItem> tree = trees.get(path);
+        if (tree != null) {
+            return tree;
+        }
         try {
-            return gitLabApi.getRepositoryApi().getTree(projectPath, getPath(), ref);
+            tree = GitLabRateLimiter.get(gitLabApi)
+                    .callListing(() -> gitLabApi.getRepositoryApi().getTree(projectPath, path, ref));
         } catch (GitLabApiException e) {
-            throw new IOException(String.format("%s not found at %s", getPath(), ref));
+            if (e.getHttpStatus() != 404) {
+                throw new IOException(String.format("Failed to list %s at %s", path, ref), e);
+            }
+            tree = NOT_FOUND;
         }
+        List<TreeItem> previous = trees.putIfAbsent(path, tree);
+        return previous != null ? previous : tree;
     }
 }
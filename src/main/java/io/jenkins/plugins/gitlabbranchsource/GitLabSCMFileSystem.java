@@ -9,6 +9,10 @@ import hudson.model.Item;
 import hudson.scm.SCM;
 import hudson.scm.SCMDescriptor;
 import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import jenkins.plugins.git.AbstractGitSCMSource;
 import jenkins.scm.api.SCMFile;
 import jenkins.scm.api.SCMFileSystem;
 import jenkins.scm.api.SCMHead;
@@ -18,12 +22,17 @@ import jenkins.scm.api.SCMSourceDescriptor;
 import jenkins.scm.api.mixin.ChangeRequestCheckoutStrategy;
 import org.gitlab4j.api.GitLabApi;
 import org.gitlab4j.api.GitLabApiException;
+import org.gitlab4j.api.models.TreeItem;
 
 public class GitLabSCMFileSystem extends SCMFileSystem {
 
     private final GitLabApi gitLabApi;
     private final String projectPath;
     private final String ref;
+    /**
+     * The directory listings fetched by the files of this file system, which is bound to a single ref.
+     */
+    private final ConcurrentMap<String, List<TreeItem>> trees = new ConcurrentHashMap<>();
 
     protected GitLabSCMFileSystem(GitLabApi gitLabApi, String projectPath, String ref, @CheckForNull SCMRevision rev)
             throws IOException {
@@ -49,7 +58,7 @@ public class GitLabSCMFileSystem extends SCMFileSystem {
     @NonNull
     @Override
     public SCMFile getRoot() {
-        return new GitLabSCMFile(gitLabApi, projectPath, ref);
+        return new GitLabSCMFile(gitLabApi, projectPath, ref, trees);
     }
 
     @Extension
@@ -116,7 +125,31 @@ public class GitLabSCMFileSystem extends SCMFileSystem {
             } else {
                 return null;
             }
-            return new GitLabSCMFileSystem(gitLabApi, projectPath, ref, rev);
+            return new GitLabSCMFileSystem(gitLabApi, projectPath, resolveRef(head, rev, ref), rev);
+        }
+
+        /**
+         * Reads at the commit of the revision when known, so that the file system sees a single tree even if the
+         * head moves meanwhile. The commit is only used when it belongs to the head being read: an untrusted merge
+         * request is probed through its target branch with the merge request revision, and must then be read at the
+         * target commit, never at the commit of its origin.
+         */
+        private static String resolveRef(@NonNull SCMHead head, @CheckForNull SCMRevision rev, String ref) {
+            if (rev instanceof MergeRequestSCMRevision) {
+                MergeRequestSCMRevision mrRev = (MergeRequestSCMRevision) rev;
+                if (head instanceof MergeRequestSCMHead) {
+                    if (head.equals(rev.getHead())
+                            && ((MergeRequestSCMHead) head).getCheckoutStrategy()
+                                    == ChangeRequestCheckoutStrategy.HEAD) {
+                        return mrRev.getHeadHash();
+                    }
+                } else if (head.equals(mrRev.getTarget().getHead())) {
+                    return mrRev.getBaseHash();
+                }
+            } else if (rev instanceof AbstractGitSCMSource.SCMRevisionImpl && head.equals(rev.getHead())) {
+                return ((AbstractGitSCMSource.SCMRevisionImpl) rev).getHash();
+            }
+            return ref;
         }
     }
 }
@@ -4,7 +4,6 @@ import static com.cloudbees.plugins.credentials.CredentialsProvider.lookupCreden
 import static com.cloudbees.plugins.credentials.domains.URIRequirementBuilder.fromUri;
 import static io.jenkins.plugins.gitlabbranchsource.helpers.GitLabHelper.apiBuilder;
 import static io.jenkins.plugins.gitlabbranchsource.helpers.GitLabHelper.getPrivateTokenAsPlainText;
-import static io.jenkins.plugins.gitlabbranchsource.helpers.GitLabHelper.getProxyConfig;
 import static io.jenkins.plugins.gitlabbranchsource.helpers.GitLabHelper.getServerUrl;
 import static io.jenkins.plugins.gitlabbranchsource.helpers.GitLabHelper.getServerUrlFromName;
 import static io.jenkins.plugins.gitlabbranchsource.helpers.GitLabIcons.ICON_GITLAB;
@@ -24,27 +23,47 @@ import hudson.model.Item;
 import hudson.model.Queue;
 import hudson.model.TaskListener;
 import hudson.security.ACL;
+import hudson.security.ACLContext;
+import hudson.util.DaemonThreadFactory;
 import hudson.util.FormValidation;
 import hudson.util.ListBoxModel;
+import hudson.util.NamingThreadFactory;
+import io.jenkins.plugins.gitlabbranchsource.helpers.GitLabApiPool;
 import io.jenkins.plugins.gitlabbranchsource.helpers.GitLabAvatar;
+import io.jenkins.plugins.gitlabbranchsource.helpers.GitLabCircuitBreaker;
 import io.jenkins.plugins.gitlabbranchsource.helpers.GitLabGroup;
 import io.jenkins.plugins.gitlabbranchsource.helpers.GitLabLink;
 import io.jenkins.plugins.gitlabbranchsource.helpers.GitLabOwner;
+import io.jenkins.plugins.gitlabbranchsource.helpers.GitLabRateLimiter;
 import io.jenkins.plugins.gitlabbranchsource.helpers.GitLabUser;
 import io.jenkins.plugins.gitlabserverconfig.credentials.helpers.GitLabCredentialMatcher;
 import io.jenkins.plugins.gitlabserverconfig.servers.GitLabServer;
 import io.jenkins.plugins.gitlabserverconfig.servers.GitLabServers;
 import jakarta.inject.Inject;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.PrintStream;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -55,6 +74,7 @@ import jenkins.scm.api.SCMNavigator;
 import jenkins.scm.api.SCMNavigatorDescriptor;
 import jenkins.scm.api.SCMNavigatorEvent;
 import jenkins.scm.api.SCMNavigatorOwner;
+import jenkins.scm.api.SCMSourceEvent;
 import jenkins.scm.api.SCMSourceObserver;
 import jenkins.scm.api.SCMSourceOwner;
 import jenkins.scm.api.metadata.ObjectMetadataAction;
@@ -67,12 +87,15 @@ import jenkins.scm.api.trait.SCMTraitDescriptor;
 import jenkins.scm.impl.form.NamedArrayList;
 import jenkins.scm.impl.trait.Discovery;
 import jenkins.scm.impl.trait.Selection;
+import jenkins.util.SystemProperties;
 import org.apache.commons.lang3.StringUtils;
 import org.gitlab4j.api.GitLabApi;
 import org.gitlab4j.api.GitLabApiException;
+import org.gitlab4j.api.Pager;
 import org.gitlab4j.api.models.GroupProjectsFilter;
 import org.gitlab4j.api.models.Project;
 import org.gitlab4j.api.models.ProjectFilter;
+import org.gitlab4j.models.Constants.ProjectOrderBy;
 import org.jenkins.ui.icon.IconSpec;
 import org.jenkinsci.Symbol;
 import org.jenkinsci.plugins.gitclient.GitClient;
@@ -80,10 +103,25 @@ import org.kohsuke.stapler.AncestorInPath;
 import org.kohsuke.stapler.DataBoundConstructor;
 import org.kohsuke.stapler.DataBoundSetter;
 import org.kohsuke.stapler.QueryParameter;
+import org.springframework.security.core.Authentication;
 
 public class GitLabSCMNavigator extends SCMNavigator {
 
     public static final Logger LOGGER = Logger.getLogger(GitLabSCMNavigator.class.getName());
+    /**
+     * How often a group scan fetches the details of every project and re-verifies every web hook rather than only
+     * those of the projects with activity since the last scan.
+     */
+    private static final long FULL_SCAN_INTERVAL_MILLIS = SystemProperties.getLong(
+            GitLabSCMNavigator.class.getName() + ".fullScanIntervalMillis", TimeUnit.HOURS.toMillis(24));
+    /**
+     * The number of threads checking projects, shared by all the scans. A scan uses at most as many of them as its
+     * concurrency.
+     */
+    private static final int PROJECT_THREADS =
+            SystemProperties.getInteger(GitLabSCMNavigator.class.getName() + ".projectThreads", 16);
+
+    private static final ThreadPoolExecutor projectExecutor = newProjectExecutor();
     /**
      * The owner of the projects to navigate.
      */
@@ -103,9 +141,10 @@ public class GitLabSCMNavigator extends SCMNavigator {
     private List<SCMTrait<? extends SCMTrait<?>>> traits;
 
     /**
-     * The path with namespace of Navigator projects.
+     * The path with namespace of Navigator projects. Never updated but replaced, so that events can look projects up
+     * while a scan adds them.
      */
-    private HashSet<String> navigatorProjects = new HashSet<>();
+    private volatile HashSet<String> navigatorProjects = new HashSet<>();
 
     /**
      * To store if project owner is group
@@ -119,19 +158,96 @@ public class GitLabSCMNavigator extends SCMNavigator {
 
     private transient GitLabOwner gitlabOwner; // TODO check if a better data structure can be used
 
+    /**
+     * The details of the group projects seen by the last scan keyed by project id, or {@code null} if no scan
+     * completed yet. Used by incremental scans for projects without activity since.
+     */
+    private transient Map<Long, Project> scannedProjects;
+
+    /**
+     * The latest project activity seen by the last scan, as reported by the GitLab server.
+     */
+    private transient Date scannedActivity;
+
+    /**
+     * When the last full scan of the group projects started.
+     */
+    private transient long lastFullScan;
+
     @DataBoundConstructor
     public GitLabSCMNavigator(String projectOwner) {
         this.projectOwner = projectOwner;
         this.traits = new ArrayList<>();
     }
 
+    private static ThreadPoolExecutor newProjectExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                Math.max(1, PROJECT_THREADS),
+                Math.max(1, PROJECT_THREADS),
+                60L,
+                TimeUnit.SECONDS,
+                // a scan queues at most as many tasks as its concurrency, each checking projects until none is left
+                new LinkedBlockingQueue<>(),
+                new NamingThreadFactory(new DaemonThreadFactory(), GitLabSCMNavigator.class.getName()));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
     public static String getProjectOwnerFromNamespace(String projectPathWithNamespace) {
         int namespaceLength = projectPathWithNamespace.lastIndexOf("/");
         return projectPathWithNamespace.substring(0, namespaceLength);
     }
 
-    public HashSet<String> getNavigatorProjects() {
-        return navigatorProjects;
+    public Set<String> getNavigatorProjects() {
+        return Collections.unmodifiableSet(navigatorProjects);
+    }
+
+    private synchronized void addNavigatorProjects(Collection<String> projects) {
+        if (!navigatorProjects.containsAll(projects)) {
+            HashSet<String> added = new HashSet<>(navigatorProjects);
+            added.addAll(projects);
+            navigatorProjects = added;
+        }
+    }
+
+    /**
+     * Whether a renamed or transferred project can be updated in place. Only the project name strategy gives the
+     * same item name whatever the path, with the other strategies the next scan proposes the project under a new
+     * name.
+     *
+     * @return {@code true} if the item names do not depend on the project paths.
+     */
+    boolean isRelocatedInPlace() {
+        return new GitLabSCMNavigatorContext().withTraits(traits).withProjectNamingStrategy() == 2;
+    }
+
+    /**
+     * Replaces the path of a project, or of all the projects under a namespace, after it was renamed or transferred.
+     * Does nothing unless {@link #isRelocatedInPlace()}.
+     *
+     * @param oldPath   the old path with namespace of the project, or the old full path of the namespace.
+     * @param newPath   the new path with namespace of the project, or the new full path of the namespace.
+     * @param namespace {@code true} if the paths are those of a namespace.
+     * @return {@code true} if any project path was replaced.
+     */
+    synchronized boolean relocateProjects(@NonNull String oldPath, @NonNull String newPath, boolean namespace) {
+        if (!isRelocatedInPlace()) {
+            return false;
+        }
+        HashSet<String> relocated = new HashSet<>(navigatorProjects.size());
+        boolean changed = false;
+        for (String project : navigatorProjects) {
+            if (namespace ? project.startsWith(oldPath + "/") : project.equals(oldPath)) {
+                relocated.add(newPath + project.substring(oldPath.length()));
+                changed = true;
+            } else {
+                relocated.add(project);
+            }
+        }
+        if (changed) {
+            navigatorProjects = relocated;
+        }
+        return changed;
     }
 
     public boolean isGroup() {
@@ -235,106 +351,482 @@ public class GitLabSCMNavigator extends SCMNavigator {
         GitLabSCMNavigatorContext context = new GitLabSCMNavigatorContext().withTraits(traits);
         try (GitLabSCMNavigatorRequest request = context.newRequest(this, observer)) {
             GitLabApi gitLabApi = apiBuilder(observer.getContext(), serverName, credentialsId);
+            GitLabCircuitBreaker.checkAvailable(gitLabApi.getGitLabServerUrl(), observer.getListener());
             getGitlabOwner(gitLabApi);
             List<Project> projects;
+            Set<String> unchangedProjects = new HashSet<>();
+            long scanStarted = System.currentTimeMillis();
+            boolean fullScan = scannedProjects == null
+                    || scannedActivity == null
+                    || scanStarted - lastFullScan >= FULL_SCAN_INTERVAL_MILLIS;
             if (gitlabOwner instanceof GitLabUser) {
                 // Even returns the group projects owned by the user
-                projects = gitLabApi.getProjectApi().getUserProjects(projectOwner, new ProjectFilter().withOwned(true));
+                projects = GitLabRateLimiter.get(gitLabApi)
+                        .callListing(() -> gitLabApi
+                                .getProjectApi()
+                                .getUserProjects(projectOwner, new ProjectFilter().withOwned(true)));
             } else {
                 isGroup = true;
-                GroupProjectsFilter groupProjectsFilter = new GroupProjectsFilter();
                 wantSubGroupProjects = request.wantSubgroupProjects();
-                groupProjectsFilter.withIncludeSubGroups(wantSubGroupProjects);
-                groupProjectsFilter.withShared(request.wantSharedProjects());
-                // If projectOwner is a subgroup, it will only return projects in the subgroup
-                projects = gitLabApi.getGroupApi().getProjects(projectOwner, groupProjectsFilter);
+                projects = getGroupProjects(gitLabApi, request, fullScan, observer.getListener(), unchangedProjects);
             }
             int count = 0;
             observer.getListener().getLogger().format("%nChecking projects...%n");
-            StandardCredentials webHookCredentials = getWebHookCredentials(observer.getContext());
-            GitLabApi webhookGitLabApi = null;
-            String webHookUrl = null;
-            if (webHookCredentials != null) {
-                GitLabServer server = GitLabServers.get().findServer(serverName);
-                String serverUrl = getServerUrl(server);
-                webhookGitLabApi = new GitLabApi(
-                        serverUrl, getPrivateTokenAsPlainText(webHookCredentials), null, getProxyConfig(serverUrl));
-                webHookUrl = GitLabHookCreator.getHookUrl(server, true);
-            }
             projects = projects.stream().filter(Objects::nonNull).collect(Collectors.toList());
-            for (Project p : projects) {
-                count++;
-                String projectPathWithNamespace = p.getPathWithNamespace();
-                String projectOwner = getProjectOwnerFromNamespace(projectPathWithNamespace);
-                String projectName = getProjectName(gitLabApi, request.withProjectNamingStrategy(), p);
-                getNavigatorProjects().add(projectPathWithNamespace);
-                if (StringUtils.isEmpty(p.getDefaultBranch())) {
-                    observer.getListener()
-                            .getLogger()
-                            .format(
-                                    "%nIgnoring project with empty repository %s%n",
-                                    HyperlinkNote.encodeTo(p.getWebUrl(), p.getName()));
-                    continue;
-                }
-                if (p.getArchived() && context.isExcludeArchivedRepositories()) {
+            addNavigatorProjects(
+                    projects.stream().map(Project::getPathWithNamespace).collect(Collectors.toList()));
+            ProjectVisitor visitor = newProjectVisitor(request, context, observer, gitLabApi, unchangedProjects);
+            if (request.concurrency() > 1 && projects.size() > 1) {
+                AtomicInteger processed = new AtomicInteger();
+                boolean complete = visitProjectsInParallel(
+                        visitor, observer.getListener().getLogger(), projects, request.concurrency(), processed);
+                count = processed.get();
+                if (complete) {
                     observer.getListener()
                             .getLogger()
-                            .format(
-                                    "%nIgnoring archived project %s%n",
-                                    HyperlinkNote.encodeTo(p.getWebUrl(), p.getName()));
-                    continue;
+                            .format("%n%d projects were processed (query complete)%n", count);
+                    return;
                 }
-                observer.getListener()
-                        .getLogger()
-                        .format("%nChecking project %s%n", HyperlinkNote.encodeTo(p.getWebUrl(), projectName));
-                try {
-                    GitLabServer server = GitLabServers.get().findServer(serverName);
-                    if (webhookGitLabApi != null && webHookUrl != null) {
-                        String secretToken = server.getSecretTokenAsPlainText();
-                        if (secretToken == null) {
-                            // sending 'null' to GitLab will ignore the value, when we want to update it to be empty.
-                            secretToken = "";
-                        }
+            } else {
+                for (Project p : projects) {
+                    count++;
+                    String projectName = visitor.prepare(p, observer.getListener().getLogger());
+                    if (projectName != null && visitor.propose(p, projectName)) {
                         observer.getListener()
                                 .getLogger()
-                                .format(
-                                        "Web hook %s%n",
-                                        GitLabHookCreator.createWebHookWhenMissing(
-                                                webhookGitLabApi, projectPathWithNamespace, webHookUrl, secretToken));
+                                .format("%n%d projects were processed (query complete)%n", count);
+                        return;
                     }
-                } catch (GitLabApiException e) {
-                    observer.getListener().getLogger().format("Cannot set web hook: %s%n", e.getReason());
-                }
-                if (request.process(
-                        projectName,
-                        name -> new GitLabSCMSourceBuilder(
-                                        getId() + "::" + projectPathWithNamespace,
-                                        serverName,
-                                        credentialsId,
-                                        projectOwner,
-                                        projectPathWithNamespace,
-                                        name)
-                                .withTraits(traits)
-                                .build(),
-                        null,
-                        (Witness) (name, isMatch) -> {
-                            if (isMatch) {
-                                observer.getListener().getLogger().format("Proposing %s%n", name);
-                            } else {
-                                observer.getListener().getLogger().format("Ignoring %s%n", name);
-                            }
-                        })) {
-                    observer.getListener().getLogger().format("%n%d projects were processed (query complete)%n", count);
-                    return;
                 }
             }
             observer.getListener().getLogger().format("%n%d projects were processed%n", count);
+            if (isGroup) {
+                // only once every project was checked, so that a failed scan is retried in full
+                recordScan(projects, fullScan ? scanStarted : lastFullScan);
+            }
         } catch (GitLabApiException | URISyntaxException e) {
             LOGGER.log(Level.WARNING, "Exception caught:" + e, e);
             throw new IOException("Failed to visit SCM source", e);
         }
     }
 
+    /**
+     * Visits the one project named {@code sourceName} with a single lookup when the name can be mapped back to the
+     * project path with the configured naming strategy, otherwise falls back to visiting all the projects.
+     */
+    @Override
+    public void visitSource(@NonNull String sourceName, @NonNull SCMSourceObserver observer)
+            throws IOException, InterruptedException {
+        if (!visitProject(sourceName, true, observer)) {
+            super.visitSource(sourceName, observer);
+        }
+    }
+
+    /**
+     * Visits only the project of a {@link GitLabProjectSCMEvent}, otherwise falls back to visiting all the projects.
+     */
+    @Override
+    public void visitSources(@NonNull SCMSourceObserver observer, @NonNull SCMSourceEvent<?> event)
+            throws IOException, InterruptedException {
+        if (!(event instanceof GitLabProjectSCMEvent)
+                || !visitProject(((GitLabProjectSCMEvent) event).getSourceName(), false, observer)) {
+            super.visitSources(observer, event);
+        }
+    }
+
+    /**
+     * Looks up and checks a single project.
+     *
+     * @param name   the name given by the naming strategy or, if not {@code byName}, the path with namespace.
+     * @param byName {@code true} if {@code name} is the name given by the naming strategy.
+     * @return {@code false} if the project cannot be resolved without visiting all the projects.
+     */
+    private boolean visitProject(String name, boolean byName, SCMSourceObserver observer)
+            throws IOException, InterruptedException {
+        GitLabSCMNavigatorContext context = new GitLabSCMNavigatorContext().withTraits(traits);
+        try (GitLabSCMNavigatorRequest request = context.newRequest(this, observer)) {
+            String projectPath = byName ? getProjectPathFromName(name, request) : name;
+            if (projectPath == null) {
+                return false;
+            }
+            GitLabApi gitLabApi = apiBuilder(observer.getContext(), serverName, credentialsId);
+            GitLabCircuitBreaker.checkAvailable(gitLabApi.getGitLabServerUrl(), observer.getListener());
+            getGitlabOwner(gitLabApi);
+            PrintStream logger = observer.getListener().getLogger();
+            Project p;
+            try {
+                p = GitLabRateLimiter.get(gitLabApi).call(() -> gitLabApi.getProjectApi().getProject(projectPath));
+            } catch (GitLabApiException e) {
+                if (e.getHttpStatus() != 404) {
+                    throw e;
+                }
+                logger.format("%nProject %s not found%n", projectPath);
+                return true;
+            }
+            String namespace = getProjectOwnerFromNamespace(p.getPathWithNamespace());
+            boolean owned = namespace.equals(projectOwner)
+                    || (gitlabOwner instanceof GitLabGroup
+                            && request.wantSubgroupProjects()
+                            && namespace.startsWith(projectOwner + "/"));
+            if (!owned) {
+                // shared projects and the group projects owned by a user can only be found by listing them
+                return !(request.wantSharedProjects() || gitlabOwner instanceof GitLabUser);
+            }
+            ProjectVisitor visitor =
+                    newProjectVisitor(request, context, observer, gitLabApi, Collections.<String>emptySet());
+            String projectName = visitor.prepare(p, logger);
+            if (projectName == null || (byName && !projectName.equals(name))) {
+                return true;
+            }
+            addNavigatorProjects(Collections.singleton(p.getPathWithNamespace()));
+            visitor.propose(p, projectName);
+            return true;
+        } catch (GitLabApiException | URISyntaxException e) {
+            LOGGER.log(Level.WARNING, "Exception caught:" + e, e);
+            throw new IOException("Failed to visit SCM source " + name, e);
+        }
+    }
+
+    /**
+     * Maps a project name given by the naming strategy back to the project path.
+     *
+     * @return the project path or {@code null} if the name cannot be mapped back.
+     */
+    @CheckForNull
+    private String getProjectPathFromName(String projectName, GitLabSCMNavigatorRequest request) {
+        switch (request.withProjectNamingStrategy()) {
+            default: // for legacy reasons default naming strategy is set to Full Project path
+            case 1:
+                return projectName;
+            case 3:
+                // Contextual project path
+                return projectOwner + "/" + projectName;
+            case 4:
+                // Simple project path, ambiguous across subgroups
+                return request.wantSubgroupProjects() ? null : projectOwner + "/" + projectName;
+            case 2:
+                // Project name, not a path
+                return null;
+        }
+    }
+
+    private ProjectVisitor newProjectVisitor(
+            GitLabSCMNavigatorRequest request,
+            GitLabSCMNavigatorContext context,
+            SCMSourceObserver observer,
+            GitLabApi gitLabApi,
+            Set<String> unchangedProjects) {
+        StandardCredentials webHookCredentials = getWebHookCredentials(observer.getContext());
+        GitLabApi webhookGitLabApi = null;
+        String webHookUrl = null;
+        if (webHookCredentials != null) {
+            GitLabServer server = GitLabServers.get().findServer(serverName);
+            String serverUrl = getServerUrl(server);
+            webhookGitLabApi = GitLabApiPool.get(serverUrl, getPrivateTokenAsPlainText(webHookCredentials));
+            webHookUrl = GitLabHookCreator.getHookUrl(server, true);
+        }
+        return new ProjectVisitor(
+                request, context, observer, gitLabApi, webhookGitLabApi, webHookUrl, unchangedProjects);
+    }
+
+    /**
+     * Lists the projects of the group. The first scan, and then one scan every
+     * {@link #FULL_SCAN_INTERVAL_MILLIS}, fetches the details of every project. Other scans only fetch the details of
+     * the projects with activity since the last scan, newest first, and reconcile the remaining projects, including
+     * deletions, against a light listing of the group, reusing the details from the previous scan.
+     *
+     * @param fullScan          {@code true} to fetch the details of every project.
+     * @param unchangedProjects receives the path of the projects without activity since the last scan.
+     */
+    private List<Project> getGroupProjects(
+            GitLabApi gitLabApi,
+            GitLabSCMNavigatorRequest request,
+            boolean fullScan,
+            TaskListener listener,
+            Set<String> unchangedProjects)
+            throws GitLabApiException {
+        List<Project> projects;
+        GitLabRateLimiter rateLimiter = GitLabRateLimiter.get(gitLabApi);
+        // If projectOwner is a subgroup, it will only return projects in the subgroup
+        if (fullScan) {
+            projects = rateLimiter.callListing(
+                    () -> gitLabApi.getGroupApi().getProjects(projectOwner, newGroupProjectsFilter(request)));
+        } else {
+            Map<Long, Project> changed = new HashMap<>();
+            Pager<Project> pager = rateLimiter.call(() -> gitLabApi
+                    .getGroupApi()
+                    .getProjects(
+                            projectOwner,
+                            newGroupProjectsFilter(request).withOrderBy(ProjectOrderBy.LAST_ACTIVITY_AT),
+                            100));
+            pages:
+            while (pager.hasNext()) {
+                rateLimiter.acquire();
+                for (Project p : pager.next()) {
+                    if (p.getLastActivityAt() != null && p.getLastActivityAt().before(scannedActivity)) {
+                        break pages;
+                    }
+                    changed.put(p.getId(), p);
+                }
+            }
+            projects = new ArrayList<>();
+            for (Project simple : rateLimiter.callListing(() -> gitLabApi
+                    .getGroupApi()
+                    .getProjects(projectOwner, newGroupProjectsFilter(request).withSimple(true)))) {
+                if (simple == null) {
+                    continue;
+                }
+                Project p = changed.get(simple.getId());
+                if (p == null) {
+                    p = scannedProjects.get(simple.getId());
+                    if (p != null
+                            && Objects.equals(p.getPathWithNamespace(), simple.getPathWithNamespace())
+                            && Objects.equals(p.getDefaultBranch(), simple.getDefaultBranch())) {
+                        unchangedProjects.add(p.getPathWithNamespace());
+                    } else {
+                        // new to this navigator without recent activity, e.g. transferred into the group
+                        p = rateLimiter.call(() -> gitLabApi.getProjectApi().getProject(simple.getId()));
+                    }
+                }
+                projects.add(p);
+            }
+            listener.getLogger()
+                    .format(
+                            "%n%d of %d projects changed since the last scan%n",
+                            projects.size() - unchangedProjects.size(), projects.size());
+        }
+        return projects;
+    }
+
+    /**
+     * Remembers the projects seen by a completed scan for the next incremental scan.
+     */
+    private void recordScan(List<Project> projects, long fullScanStarted) {
+        Map<Long, Project> scanned = new HashMap<>();
+        Date activity = scannedActivity;
+        for (Project p : projects) {
+            if (p == null || p.getId() == null) {
+                continue;
+            }
+            scanned.put(p.getId(), p);
+            if (p.getLastActivityAt() != null && (activity == null || p.getLastActivityAt().after(activity))) {
+                activity = p.getLastActivityAt();
+            }
+        }
+        scannedProjects = scanned;
+        scannedActivity = activity;
+        lastFullScan = fullScanStarted;
+    }
+
+    private static GroupProjectsFilter newGroupProjectsFilter(GitLabSCMNavigatorRequest request) {
+        GroupProjectsFilter groupProjectsFilter = new GroupProjectsFilter();
+        groupProjectsFilter.withIncludeSubGroups(request.wantSubgroupProjects());
+        groupProjectsFilter.withShared(request.wantSharedProjects());
+        return groupProjectsFilter;
+    }
+
+    /**
+     * Checks the projects with at most {@code concurrency} threads of the pool shared by all the scans. Preparing a
+     * project, which includes the web hook verification, runs concurrently while projects are proposed one at a
+     * time, and the log of each project is buffered so that it is written to the scan log in one piece. The first
+     * failure stops the checks and is rethrown once the threads are done.
+     *
+     * @return {@code true} if the request completed before all projects were processed.
+     */
+    static boolean visitProjectsInParallel(
+            ProjectCheck visitor, PrintStream logger, List<Project> projects, int concurrency, AtomicInteger count)
+            throws IOException, InterruptedException {
+        Authentication authentication = Jenkins.getAuthentication2();
+        AtomicBoolean complete = new AtomicBoolean();
+        AtomicBoolean failed = new AtomicBoolean();
+        AtomicInteger next = new AtomicInteger();
+        int workers = Math.min(concurrency, projects.size());
+        List<Future<Void>> futures = new ArrayList<>(workers);
+        try {
+            for (int i = 0; i < workers; i++) {
+                futures.add(projectExecutor.submit(() -> {
+                    try (ACLContext ctx = ACL.as2(authentication)) {
+                        int index;
+                        while (!complete.get()
+                                && !failed.get()
+                                && (index = next.getAndIncrement()) < projects.size()) {
+                            checkProject(visitor, logger, projects.get(index), complete, count);
+                        }
+                    } catch (Exception e) {
+                        failed.set(true);
+                        throw e;
+                    }
+                    return null;
+                }));
+            }
+            for (Future<Void> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof IOException) {
+                        throw (IOException) cause;
+                    }
+                    if (cause instanceof InterruptedException) {
+                        throw (InterruptedException) cause;
+                    }
+                    throw new IOException("Failed to check project", cause);
+                }
+            }
+        } finally {
+            // the threads are shared, only those still working for this scan are interrupted
+            for (Future<Void> future : futures) {
+                future.cancel(true);
+            }
+        }
+        return complete.get();
+    }
+
+    private static void checkProject(
+            ProjectCheck visitor, PrintStream logger, Project p, AtomicBoolean complete, AtomicInteger count)
+            throws IOException, InterruptedException, URISyntaxException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        String projectName;
+        try (PrintStream projectLogger = new PrintStream(buffer, true, StandardCharsets.UTF_8)) {
+            projectName = visitor.prepare(p, projectLogger);
+        }
+        synchronized (visitor) {
+            if (complete.get()) {
+                return;
+            }
+            count.incrementAndGet();
+            logger.write(buffer.toByteArray());
+            if (projectName != null && visitor.propose(p, projectName)) {
+                complete.set(true);
+            }
+        }
+    }
+
+    /**
+     * Checks the projects of a navigation, split in two steps so that they can be checked in parallel.
+     */
+    interface ProjectCheck {
+        /**
+         * Checks whether a project should be proposed, may be called concurrently.
+         *
+         * @return the name of the project or {@code null} if the project is ignored.
+         */
+        @CheckForNull
+        String prepare(Project p, PrintStream logger) throws URISyntaxException;
+
+        /**
+         * Proposes a project, never called concurrently.
+         *
+         * @return {@code true} if the request is completed.
+         */
+        boolean propose(Project p, String projectName) throws IOException, InterruptedException;
+    }
+
+    /**
+     * Checks the projects of a single navigation.
+     */
+    private class ProjectVisitor implements ProjectCheck {
+        private final GitLabSCMNavigatorRequest request;
+        private final GitLabSCMNavigatorContext context;
+        private final SCMSourceObserver observer;
+        private final GitLabApi gitLabApi;
+        private final GitLabApi webhookGitLabApi;
+        private final String webHookUrl;
+        /**
+         * The path of the projects whose web hook was verified by a previous scan and that had no activity since.
+         */
+        private final Set<String> unchangedProjects;
+
+        ProjectVisitor(
+                GitLabSCMNavigatorRequest request,
+                GitLabSCMNavigatorContext context,
+                SCMSourceObserver observer,
+                GitLabApi gitLabApi,
+                GitLabApi webhookGitLabApi,
+                String webHookUrl,
+                Set<String> unchangedProjects) {
+            this.request = request;
+            this.context = context;
+            this.observer = observer;
+            this.gitLabApi = gitLabApi;
+            this.webhookGitLabApi = webhookGitLabApi;
+            this.webHookUrl = webHookUrl;
+            this.unchangedProjects = unchangedProjects;
+        }
+
+        /**
+         * Checks whether a project should be proposed and makes sure its web hook is registered.
+         *
+         * @return the name of the project or {@code null} if the project is ignored.
+         */
+        @Override
+        @CheckForNull
+        public String prepare(Project p, PrintStream logger) throws URISyntaxException {
+            String projectPathWithNamespace = p.getPathWithNamespace();
+            String projectName = getProjectName(gitLabApi, request.withProjectNamingStrategy(), p);
+            if (StringUtils.isEmpty(p.getDefaultBranch())) {
+                logger.format(
+                        "%nIgnoring project with empty repository %s%n",
+                        HyperlinkNote.encodeTo(p.getWebUrl(), p.getName()));
+                return null;
+            }
+            if (p.getArchived() && context.isExcludeArchivedRepositories()) {
+                logger.format("%nIgnoring archived project %s%n", HyperlinkNote.encodeTo(p.getWebUrl(), p.getName()));
+                return null;
+            }
+            logger.format("%nChecking project %s%n", HyperlinkNote.encodeTo(p.getWebUrl(), projectName));
+            try {
+                GitLabServer server = GitLabServers.get().findServer(serverName);
+                if (webhookGitLabApi != null
+                        && webHookUrl != null
+                        && !unchangedProjects.contains(projectPathWithNamespace)) {
+                    String secretToken = server.getSecretTokenAsPlainText();
+                    if (secretToken == null) {
+                        // sending 'null' to GitLab will ignore the value, when we want to update it to be empty.
+                        secretToken = "";
+                    }
+                    logger.format(
+                            "Web hook %s%n",
+                            GitLabHookCreator.createWebHookWhenMissing(
+                                    webhookGitLabApi, projectPathWithNamespace, webHookUrl, secretToken));
+                }
+            } catch (GitLabApiException e) {
+                logger.format("Cannot set web hook: %s%n", e.getReason());
+            }
+            return projectName;
+        }
+
+        /**
+         * Proposes a project to the request.
+         *
+         * @return {@code true} if the request is complete.
+         */
+        @Override
+        public boolean propose(Project p, String projectName) throws IOException, InterruptedException {
+            String projectPathWithNamespace = p.getPathWithNamespace();
+            String projectOwner = getProjectOwnerFromNamespace(projectPathWithNamespace);
+            return request.process(
+                    projectName,
+                    name -> new GitLabSCMSourceBuilder(
+                                    getId() + "::" + projectPathWithNamespace,
+                                    serverName,
+                                    credentialsId,
+                                    projectOwner,
+                                    projectPathWithNamespace,
+                                    name)
+                            .withTraits(traits)
+                            .build(),
+                    null,
+                    (Witness) (name, isMatch) -> {
+                        if (isMatch) {
+                            observer.getListener().getLogger().format("Proposing %s%n", name);
+                        } else {
+                            observer.getListener().getLogger().format("Ignoring %s%n", name);
+                        }
+                    });
+        }
+    }
+
     @NonNull
     private String getProjectName(GitLabApi gitLabApi, int projectNamingStrategy, Project project)
             throws URISyntaxException {
@@ -14,6 +14,9 @@ public class GitLabSCMNavigatorContext
 
     private int projectNamingStrategy = 1;
 
+    /** The number of projects checked at the same time. */
+    private int concurrency = 1;
+
     /** If true, archived repositories will be ignored. */
     private boolean excludeArchivedRepositories;
 
@@ -58,6 +61,20 @@ public class GitLabSCMNavigatorContext
         return this;
     }
 
+    /**
+     * Returns the number of projects checked at the same time.
+     *
+     * @return the number of projects checked at the same time.
+     */
+    public int concurrency() {
+        return concurrency;
+    }
+
+    public GitLabSCMNavigatorContext withConcurrency(int concurrency) {
+        this.concurrency = concurrency;
+        return this;
+    }
+
     /** @return True if archived repositories should be ignored, false if they should be included. */
     public boolean isExcludeArchivedRepositories() {
         return excludeArchivedRepositories;
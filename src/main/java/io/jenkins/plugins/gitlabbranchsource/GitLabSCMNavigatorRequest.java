@@ -12,6 +12,8 @@ public class GitLabSCMNavigatorRequest extends SCMNavigatorRequest {
 
     private int projectNamingStrategy;
 
+    private final int concurrency;
+
     protected GitLabSCMNavigatorRequest(
             @NonNull SCMNavigator source,
             @NonNull GitLabSCMNavigatorContext context,
@@ -20,6 +22,7 @@ public class GitLabSCMNavigatorRequest extends SCMNavigatorRequest {
         wantSubgroupProjects = context.wantSubgroupProjects();
         wantSharedProjects = context.wantSharedProjects();
         projectNamingStrategy = context.withProjectNamingStrategy();
+        concurrency = context.concurrency();
     }
 
     /**
@@ -45,4 +48,13 @@ public class GitLabSCMNavigatorRequest extends SCMNavigatorRequest {
     public int withProjectNamingStrategy() {
         return projectNamingStrategy;
     }
+
+    /**
+     * Returns the number of projects checked at the same time.
+     *
+     * @return the number of projects checked at the same time.
+     */
+    public int concurrency() {
+        return concurrency;
+    }
 }
@@ -16,6 +16,7 @@ import com.cloudbees.plugins.credentials.CredentialsProvider;
 import com.cloudbees.plugins.credentials.common.StandardCredentials;
 import com.cloudbees.plugins.credentials.common.StandardListBoxModel;
 import com.cloudbees.plugins.credentials.common.StandardUsernameCredentials;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import edu.umd.cs.findbugs.annotations.Nullable;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
@@ -31,16 +32,22 @@ import hudson.scm.SCM;
 import hudson.security.ACL;
 import hudson.util.ListBoxModel;
 import io.jenkins.plugins.gitlabbranchsource.helpers.GitLabAvatar;
+import io.jenkins.plugins.gitlabbranchsource.helpers.GitLabCircuitBreaker;
 import io.jenkins.plugins.gitlabbranchsource.helpers.GitLabLink;
-import io.jenkins.plugins.gitlabbranchsource.helpers.Sleeper;
+import io.jenkins.plugins.gitlabbranchsource.helpers.GitLabListingCache;
+import io.jenkins.plugins.gitlabbranchsource.helpers.GitLabMembersCache;
+import io.jenkins.plugins.gitlabbranchsource.helpers.GitLabPagedIterable;
+import io.jenkins.plugins.gitlabbranchsource.helpers.GitLabRateLimiter;
 import io.jenkins.plugins.gitlabserverconfig.credentials.GroupAccessToken;
 import io.jenkins.plugins.gitlabserverconfig.credentials.PersonalAccessToken;
 import io.jenkins.plugins.gitlabserverconfig.servers.GitLabServer;
 import io.jenkins.plugins.gitlabserverconfig.servers.GitLabServers;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Date;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -51,10 +58,10 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 import jenkins.model.Jenkins;
 import jenkins.plugins.git.AbstractGitSCMSource;
 import jenkins.plugins.git.GitTagSCMRevision;
@@ -92,8 +99,10 @@ import org.gitlab4j.api.GitLabApi;
 import org.gitlab4j.api.GitLabApiException;
 import org.gitlab4j.api.models.AccessLevel;
 import org.gitlab4j.api.models.Branch;
+import org.gitlab4j.api.models.Event;
 import org.gitlab4j.api.models.Member;
 import org.gitlab4j.api.models.MergeRequest;
+import org.gitlab4j.api.models.MergeRequestFilter;
 import org.gitlab4j.api.models.Project;
 import org.gitlab4j.api.models.ProjectFilter;
 import org.gitlab4j.api.models.Tag;
@@ -111,8 +120,8 @@ public class GitLabSCMSource extends AbstractGitSCMSource {
 
     public static final Logger LOGGER = Logger.getLogger(GitLabSCMSource.class.getName());
     private final String serverName;
-    private final String projectOwner;
-    private final String projectPath;
+    private String projectOwner;
+    private String projectPath;
     private String projectName;
     private String credentialsId;
     private List<SCMSourceTrait> traits = new ArrayList<>();
@@ -121,9 +130,10 @@ public class GitLabSCMSource extends AbstractGitSCMSource {
     private transient Project gitlabProject;
     private Long projectId;
 
-    private static final Integer MAX_RETRIES = 5;
-
-    private static final Integer INITIAL_DELAY_MS = 5000;
+    /**
+     * The page size of the branch and tag listings, the maximum allowed by GitLab.
+     */
+    private static final int ITEMS_PER_PAGE = 100;
 
     /**
      * The cache of {@link ObjectMetadataAction} instances for each open MR.
@@ -208,6 +218,29 @@ public class GitLabSCMSource extends AbstractGitSCMSource {
                 .expand();
     }
 
+    /**
+     * Points this source at the new path of its project after the project, or one of its parent groups, was renamed
+     * or transferred. The project details are fetched again on next use.
+     *
+     * @param newProjectPath the new path with namespace of the project.
+     */
+    synchronized void relocate(@NonNull String newProjectPath) {
+        String oldProjectPath = projectPath;
+        projectPath = newProjectPath;
+        projectOwner = GitLabSCMNavigator.getProjectOwnerFromNamespace(newProjectPath);
+        httpRemote = relocateRemote(httpRemote, oldProjectPath, newProjectPath);
+        sshRemote = relocateRemote(sshRemote, oldProjectPath, newProjectPath);
+        gitlabProject = null;
+    }
+
+    private static String relocateRemote(String remote, String oldProjectPath, String newProjectPath) {
+        String suffix = oldProjectPath + ".git";
+        if (remote == null || !remote.endsWith(suffix)) {
+            return remote;
+        }
+        return remote.substring(0, remote.length() - suffix.length()) + newProjectPath + ".git";
+    }
+
     protected Project getGitlabProject() {
         if (gitlabProject == null) {
             getGitlabProject(apiBuilder(this.getOwner(), serverName, credentialsId));
@@ -218,7 +251,8 @@ public class GitLabSCMSource extends AbstractGitSCMSource {
     protected Project getGitlabProject(GitLabApi gitLabApi) {
         if (gitlabProject == null) {
             try {
-                gitlabProject = gitLabApi.getProjectApi().getProject(projectPath);
+                gitlabProject =
+                        GitLabRateLimiter.get(gitLabApi).call(() -> gitLabApi.getProjectApi().getProject(projectPath));
                 sshRemote = gitlabProject.getSshUrlToRepo();
                 httpRemote = gitlabProject.getHttpUrlToRepo();
                 projectId = gitlabProject.getId();
@@ -229,55 +263,28 @@ public class GitLabSCMSource extends AbstractGitSCMSource {
         return gitlabProject;
     }
 
-    // This method always returns the latest list of members of the project
+    // This method returns the members of the project, served from the controller wide members cache when fresh
     public HashMap<String, AccessLevel> getMembers() {
-        HashMap<String, AccessLevel> members = new HashMap<>();
+        HashMap<String, AccessLevel> members = GitLabMembersCache.get(serverName, projectId, projectPath);
+        if (members != null) {
+            return members;
+        }
+        members = new HashMap<>();
         try {
-            for (Member m : getMembersWithRetries()) {
+            GitLabApi gitLabApi = apiBuilder(this.getOwner(), serverName, credentialsId);
+            List<Member> projectMembers = GitLabRateLimiter.get(gitLabApi)
+                    .callListing(() -> gitLabApi.getProjectApi().getAllMembers(projectPath));
+            for (Member m : projectMembers) {
                 members.put(m.getUsername(), m.getAccessLevel());
             }
         } catch (GitLabApiException e) {
             LOGGER.log(Level.WARNING, "Exception while fetching members" + e, e);
             return new HashMap<>();
-        } catch (InterruptedException e) {
-            throw new RuntimeException(e);
         }
+        GitLabMembersCache.put(serverName, projectId, projectPath, members);
         return members;
     }
 
-    private List<Member> getMembersWithRetries() throws GitLabApiException, InterruptedException {
-        int delay = INITIAL_DELAY_MS;
-        int attemptNb = 0;
-        final Sleeper sleeper = new Sleeper();
-        GitLabApi gitLabApi = apiBuilder(this.getOwner(), serverName, credentialsId);
-        while (true) {
-            try {
-                return gitLabApi.getProjectApi().getAllMembers(projectPath);
-            } catch (GitLabApiException | RuntimeException e) {
-                if (isRateLimitException(e)) {
-                    sleeper.sleep(delay);
-                    delay *= 2;
-                    attemptNb++;
-                    if (attemptNb > MAX_RETRIES) {
-                        throw e;
-                    }
-                    continue;
-                }
-                throw e;
-            }
-        }
-    }
-
-    private static boolean isRateLimitException(Exception e) {
-        if (e instanceof GitLabApiException) {
-            return ((GitLabApiException) e).getHttpStatus() == 429;
-        } else if (e.getCause() != null && e.getCause().getClass().isAssignableFrom(GitLabApiException.class)) {
-            GitLabApiException cause = (GitLabApiException) e.getCause();
-            return cause.getHttpStatus() == 429;
-        }
-        return false;
-    }
-
     public Long getProjectId() {
         return projectId;
     }
@@ -303,12 +310,12 @@ public class GitLabSCMSource extends AbstractGitSCMSource {
             throws IOException, InterruptedException {
         try {
             GitLabApi gitLabApi = apiBuilder(this.getOwner(), serverName, credentialsId);
+            GitLabRateLimiter rateLimiter = GitLabRateLimiter.get(gitLabApi);
             getGitlabProject(gitLabApi);
             if (head instanceof BranchSCMHead) {
                 listener.getLogger().format("Querying the current revision of branch %s...%n", head.getName());
-                String revision = gitLabApi
-                        .getRepositoryApi()
-                        .getBranch(gitlabProject, head.getName())
+                String revision = rateLimiter
+                        .call(() -> gitLabApi.getRepositoryApi().getBranch(gitlabProject, head.getName()))
                         .getCommit()
                         .getId();
                 listener.getLogger().format("Current revision of branch %s is %s%n", head.getName(), revision);
@@ -316,11 +323,12 @@ public class GitLabSCMSource extends AbstractGitSCMSource {
             } else if (head instanceof MergeRequestSCMHead) {
                 MergeRequestSCMHead h = (MergeRequestSCMHead) head;
                 listener.getLogger().format("Querying the current revision of merge request #%s...%n", h.getId());
-                MergeRequest mr =
-                        gitLabApi.getMergeRequestApi().getMergeRequest(gitlabProject, Long.parseLong(h.getId()));
-                String targetSha = gitLabApi
-                        .getRepositoryApi()
-                        .getBranch(mr.getTargetProjectId(), mr.getTargetBranch())
+                MergeRequest mr = rateLimiter.call(() ->
+                        gitLabApi.getMergeRequestApi().getMergeRequest(gitlabProject, Long.parseLong(h.getId())));
+                String targetSha = rateLimiter
+                        .call(() -> gitLabApi
+                                .getRepositoryApi()
+                                .getBranch(mr.getTargetProjectId(), mr.getTargetBranch()))
                         .getCommit()
                         .getId();
                 if (mr.getState().equals(Constants.MergeRequestState.OPENED.toString())) {
@@ -336,9 +344,8 @@ public class GitLabSCMSource extends AbstractGitSCMSource {
                 }
             } else if (head instanceof GitLabTagSCMHead) {
                 listener.getLogger().format("Querying the current revision of tag %s...%n", head.getName());
-                String revision = gitLabApi
-                        .getTagsApi()
-                        .getTag(gitlabProject, head.getName())
+                String revision = rateLimiter
+                        .call(() -> gitLabApi.getTagsApi().getTag(gitlabProject, head.getName()))
                         .getCommit()
                         .getId();
                 listener.getLogger().format("Current revision of tag %s is %s%n", head.getName(), revision);
@@ -365,14 +372,39 @@ public class GitLabSCMSource extends AbstractGitSCMSource {
             throws IOException, InterruptedException {
         try {
             GitLabApi gitLabApi = apiBuilder(this.getOwner(), serverName, credentialsId);
+            GitLabCircuitBreaker.checkAvailable(gitLabApi.getGitLabServerUrl(), listener);
             getGitlabProject(gitLabApi);
             GitLabSCMSourceContext ctx = new GitLabSCMSourceContext(criteria, observer).withTraits(getTraits());
+            // Latest revision of each branch seen during this scan, keyed by project id and branch name, so that
+            // merge requests targeting the same branch resolve its head with at most one API call
+            Map<String, String> branchShas = new HashMap<>();
             try (GitLabSCMSourceRequest request = ctx.newRequest(this, listener)) {
                 request.setGitLabApi(gitLabApi);
                 request.setProject(gitlabProject);
                 request.setMembers(getMembers());
+                // Full listings are reused from the previous retrieve while the project reports no activity since
+                String validator = null;
+                GitLabListingCache.Listing listing = null;
+                boolean listAllBranches = request.isFetchBranches() && request.getRequestedOriginBranchNames() == null;
+                boolean listAllTags = request.isFetchTags() && request.getRequestedTagNames() == null;
+                if ((listAllBranches || listAllTags) && gitlabProject.getId() != null) {
+                    validator = getListingValidator(gitLabApi);
+                    if (validator != null) {
+                        listing = GitLabListingCache.get(serverName, gitlabProject.getId(), validator);
+                    }
+                }
+                GitLabListingCache.Recorder recorder = validator != null && listing == null
+                        ? GitLabListingCache.record(
+                                serverName, gitlabProject.getId(), validator, listAllBranches, listAllTags)
+                        : null;
                 if (request.isFetchBranches()) {
-                    request.setBranches(gitLabApi.getRepositoryApi().getBranches(gitlabProject));
+                    List<Branch> cachedBranches = listing != null && listAllBranches ? listing.getBranches() : null;
+                    if (cachedBranches != null) {
+                        listener.getLogger().format("%nProject not modified, reusing the previous branch listing%n");
+                        request.setBranches(cachedBranches);
+                    } else {
+                        request.setBranches(fetchBranches(gitLabApi, request, recorder));
+                    }
                 }
                 boolean mergeRequestsEnabled = !Boolean.FALSE.equals(gitlabProject.getMergeRequestsEnabled());
                 if (request.isFetchMRs() && mergeRequestsEnabled) {
@@ -387,27 +419,36 @@ public class GitLabSCMSource extends AbstractGitSCMSource {
                                         !forkedFromProject
                                                 ? "%nUnable to detect if it is a mirror or not still fetching MRs anyway...%n"
                                                 : "%nCollecting MRs for fork except those that target its upstream...%n");
-                        Stream<MergeRequest> mrs =
-                                gitLabApi
-                                        .getMergeRequestApi()
-                                        .getMergeRequests(gitlabProject, MergeRequestState.OPENED)
-                                        .stream()
-                                        .filter(mr -> mr.getSourceProjectId() != null);
+                        Predicate<MergeRequest> included = mr -> mr.getSourceProjectId() != null;
                         // Patch for issue 453 - avoid an NPE if this isn't a forked project
                         if (ctx.buildMRForksNotMirror() && forkedFromProject) {
-                            mrs = mrs.filter(mr -> !mr.getTargetProjectId()
+                            included = included.and(mr -> !mr.getTargetProjectId()
                                     .equals(gitlabProject.getForkedFromProject().getId()));
                         }
 
                         if (ctx.alwaysIgnoreMRWorkInProgress()) {
-                            mrs = mrs.filter(mr -> !mr.getWorkInProgress());
+                            included = included.and(mr -> !mr.getWorkInProgress());
                         }
 
-                        request.setMergeRequests(mrs.collect(Collectors.toList()));
+                        request.setMergeRequests(fetchMergeRequests(gitLabApi, request).stream()
+                                .filter(included)
+                                .collect(Collectors.toList()));
+                        List<MergeRequest> branchMergeRequests = fetchBranchMergeRequests(gitLabApi, request);
+                        if (branchMergeRequests != null) {
+                            request.setBranchMergeRequests(branchMergeRequests.stream()
+                                    .filter(included)
+                                    .collect(Collectors.toList()));
+                        }
                     }
                 }
                 if (request.isFetchTags()) {
-                    request.setTags(gitLabApi.getTagsApi().getTags(gitlabProject));
+                    List<Tag> cachedTags = listing != null && listAllTags ? listing.getTags() : null;
+                    if (cachedTags != null) {
+                        listener.getLogger().format("%nProject not modified, reusing the previous tag listing%n");
+                        request.setTags(cachedTags);
+                    } else {
+                        request.setTags(fetchTags(gitLabApi, request, recorder));
+                    }
                 }
                 if (request.isFetchBranches()) {
                     int count = 0;
@@ -417,6 +458,7 @@ public class GitLabSCMSource extends AbstractGitSCMSource {
                         count++;
                         String branchName = branch.getName();
                         String sha = branch.getCommit().getId();
+                        branchShas.put(branchShaKey(gitlabProject.getId(), branchName), sha);
                         listener.getLogger()
                                 .format(
                                         "%nChecking branch %s%n",
@@ -482,9 +524,8 @@ public class GitLabSCMSource extends AbstractGitSCMSource {
                             // This is a hack to get the path with namespace of source project for forked
                             // mrs
                             try {
-                                originProjectPath = gitLabApi
-                                        .getProjectApi()
-                                        .getProject(mr.getSourceProjectId())
+                                originProjectPath = GitLabRateLimiter.get(gitLabApi)
+                                        .call(() -> gitLabApi.getProjectApi().getProject(mr.getSourceProjectId()))
                                         .getPathWithNamespace();
                                 forkMrSources.put(mr.getSourceProjectId(), originProjectPath);
                             } catch (GitLabApiException e) {
@@ -502,11 +543,8 @@ public class GitLabSCMSource extends AbstractGitSCMSource {
                         }
                         String targetSha;
                         try {
-                            targetSha = gitLabApi
-                                    .getRepositoryApi()
-                                    .getBranch(mr.getTargetProjectId(), mr.getTargetBranch())
-                                    .getCommit()
-                                    .getId();
+                            targetSha = getBranchSha(
+                                    gitLabApi, branchShas, mr.getTargetProjectId(), mr.getTargetBranch());
                         } catch (Exception e) {
                             listener.getLogger()
                                     .format(
@@ -622,6 +660,10 @@ public class GitLabSCMSource extends AbstractGitSCMSource {
         } catch (GitLabApiException e) {
             LOGGER.log(Level.WARNING, "Exception caught:" + e, e);
             throw new IOException("Failed to fetch latest heads", e);
+        } catch (UncheckedIOException e) {
+            // a page of a lazily fetched listing could not be fetched
+            LOGGER.log(Level.WARNING, "Exception caught:" + e, e);
+            throw new IOException("Failed to fetch latest heads", e.getCause());
         } finally {
             SCMSourceOwner owner = this.getOwner();
             if (owner != null) {
@@ -630,6 +672,190 @@ public class GitLabSCMSource extends AbstractGitSCMSource {
         }
     }
 
+    /**
+     * Fetches the branches of the project, limited to the requested branch names when the request is scoped so that
+     * event driven retrieves only query the heads they are interested in. The full listing is fetched page by page as
+     * it is consumed.
+     */
+    private Iterable<Branch> fetchBranches(
+            GitLabApi gitLabApi, GitLabSCMSourceRequest request, @CheckForNull GitLabListingCache.Recorder recorder)
+            throws GitLabApiException {
+        GitLabRateLimiter rateLimiter = GitLabRateLimiter.get(gitLabApi);
+        Set<String> branchNames = request.getRequestedOriginBranchNames();
+        if (branchNames == null) {
+            GitLabPagedIterable<Branch> branches = new GitLabPagedIterable<>(rateLimiter.call(
+                            () -> gitLabApi.getRepositoryApi().getBranches(gitlabProject, ITEMS_PER_PAGE)))
+                    .withRateLimiter(rateLimiter);
+            if (recorder != null) {
+                branches.onPage(recorder::addBranches).onExhausted(recorder::branchesListed);
+            }
+            return branches;
+        }
+        List<Branch> branches = new ArrayList<>(branchNames.size());
+        for (String branchName : branchNames) {
+            try {
+                branches.add(
+                        rateLimiter.call(() -> gitLabApi.getRepositoryApi().getBranch(gitlabProject, branchName)));
+            } catch (GitLabApiException e) {
+                if (e.getHttpStatus() != 404) {
+                    throw e;
+                }
+                LOGGER.log(Level.FINE, "Requested branch {0} not found in {1}", new Object[] {branchName, projectPath});
+            }
+        }
+        return branches;
+    }
+
+    /**
+     * Fetches the open merge requests of the project, limited to the requested merge request numbers when the
+     * request is scoped.
+     */
+    private List<MergeRequest> fetchMergeRequests(GitLabApi gitLabApi, GitLabSCMSourceRequest request)
+            throws GitLabApiException {
+        GitLabRateLimiter rateLimiter = GitLabRateLimiter.get(gitLabApi);
+        Set<Long> mergeRequestNumbers = request.getRequestedMergeRequestNumbers();
+        if (mergeRequestNumbers == null) {
+            return rateLimiter.callListing(
+                    () -> gitLabApi.getMergeRequestApi().getMergeRequests(gitlabProject, MergeRequestState.OPENED));
+        }
+        List<MergeRequest> mergeRequests = new ArrayList<>(mergeRequestNumbers.size());
+        for (Long iid : mergeRequestNumbers) {
+            try {
+                MergeRequest mr =
+                        rateLimiter.call(() -> gitLabApi.getMergeRequestApi().getMergeRequest(gitlabProject, iid));
+                if (MergeRequestState.OPENED.toString().equals(mr.getState())) {
+                    mergeRequests.add(mr);
+                }
+            } catch (GitLabApiException e) {
+                if (e.getHttpStatus() != 404) {
+                    throw e;
+                }
+                LOGGER.log(
+                        Level.FINE, "Requested merge request !{0} not found in {1}", new Object[] {iid, projectPath});
+            }
+        }
+        return mergeRequests;
+    }
+
+    /**
+     * Fetches the open merge requests of the requested branches, which the branch filters need to tell merge request
+     * branches apart when the request is scoped. They are not built, so they are kept apart from the merge requests
+     * of the request.
+     *
+     * @return the merge requests not already requested, or {@code null} if the branch filters do not need them.
+     */
+    @CheckForNull
+    private List<MergeRequest> fetchBranchMergeRequests(GitLabApi gitLabApi, GitLabSCMSourceRequest request)
+            throws GitLabApiException {
+        Set<Long> mergeRequestNumbers = request.getRequestedMergeRequestNumbers();
+        Set<String> branchNames = request.getRequestedOriginBranchNames();
+        if (mergeRequestNumbers == null
+                || branchNames == null
+                || !request.isFetchBranches()
+                || !request.isFetchBranchMRs()) {
+            return null;
+        }
+        GitLabRateLimiter rateLimiter = GitLabRateLimiter.get(gitLabApi);
+        List<MergeRequest> mergeRequests = new ArrayList<>();
+        for (String branchName : branchNames) {
+            MergeRequestFilter filter = new MergeRequestFilter()
+                    .withProjectId(gitlabProject.getId())
+                    .withState(MergeRequestState.OPENED)
+                    .withSourceBranch(branchName);
+            List<MergeRequest> branchMergeRequests =
+                    rateLimiter.callListing(() -> gitLabApi.getMergeRequestApi().getMergeRequests(filter));
+            for (MergeRequest mr : branchMergeRequests) {
+                if (!mergeRequestNumbers.contains(mr.getIid())) {
+                    mergeRequests.add(mr);
+                }
+            }
+        }
+        return mergeRequests;
+    }
+
+    /**
+     * Fetches the tags of the project, limited to the requested tag names when the request is scoped. The full
+     * listing is fetched page by page as it is consumed.
+     */
+    private Iterable<Tag> fetchTags(
+            GitLabApi gitLabApi, GitLabSCMSourceRequest request, @CheckForNull GitLabListingCache.Recorder recorder)
+            throws GitLabApiException {
+        GitLabRateLimiter rateLimiter = GitLabRateLimiter.get(gitLabApi);
+        Set<String> tagNames = request.getRequestedTagNames();
+        if (tagNames == null) {
+            GitLabPagedIterable<Tag> tags = new GitLabPagedIterable<>(
+                            rateLimiter.call(() -> gitLabApi.getTagsApi().getTags(gitlabProject, ITEMS_PER_PAGE)))
+                    .withRateLimiter(rateLimiter);
+            if (recorder != null) {
+                tags.onPage(recorder::addTags).onExhausted(recorder::tagsListed);
+            }
+            return tags;
+        }
+        List<Tag> tags = new ArrayList<>(tagNames.size());
+        for (String tagName : tagNames) {
+            try {
+                tags.add(rateLimiter.call(() -> gitLabApi.getTagsApi().getTag(gitlabProject, tagName)));
+            } catch (GitLabApiException e) {
+                if (e.getHttpStatus() != 404) {
+                    throw e;
+                }
+                LOGGER.log(Level.FINE, "Requested tag {0} not found in {1}", new Object[] {tagName, projectPath});
+            }
+        }
+        return tags;
+    }
+
+    /**
+     * Returns a validator for the branch and tag listings of the project: the creation time of its latest activity
+     * event, which changes whenever a branch or tag is pushed, created or deleted. GitLab4J cannot issue conditional
+     * requests, so this single event lookup plays the part of an {@code ETag}.
+     *
+     * @return the validator or {@code null} if the activity of the project cannot be read.
+     */
+    @CheckForNull
+    private String getListingValidator(GitLabApi gitLabApi) {
+        try {
+            List<Event> events = GitLabRateLimiter.get(gitLabApi).call(() -> gitLabApi
+                    .getEventsApi()
+                    .getProjectEvents(
+                            gitlabProject.getId(),
+                            (Constants.ActionType) null,
+                            (Constants.TargetType) null,
+                            null,
+                            null,
+                            Constants.SortOrder.DESC,
+                            1,
+                            1));
+            if (events.isEmpty()) {
+                return "none";
+            }
+            Date createdAt = events.get(0).getCreatedAt();
+            return createdAt != null ? Long.toString(createdAt.getTime()) : null;
+        } catch (GitLabApiException e) {
+            LOGGER.log(Level.FINE, "Cannot read the activity of " + projectPath + ", listing in full", e);
+            return null;
+        }
+    }
+
+    private static String branchShaKey(Long projectId, String branchName) {
+        return projectId + ":" + branchName;
+    }
+
+    private static String getBranchSha(
+            GitLabApi gitLabApi, Map<String, String> branchShas, Long projectId, String branchName)
+            throws GitLabApiException {
+        String key = branchShaKey(projectId, branchName);
+        String sha = branchShas.get(key);
+        if (sha == null) {
+            sha = GitLabRateLimiter.get(gitLabApi)
+                    .call(() -> gitLabApi.getRepositoryApi().getBranch(projectId, branchName))
+                    .getCommit()
+                    .getId();
+            branchShas.put(key, sha);
+        }
+        return sha;
+    }
+
     @Override
     protected SCMRevision retrieve(@NonNull String thingName, @NonNull TaskListener listener)
             throws IOException, InterruptedException {
@@ -18,6 +18,7 @@ public class GitLabSCMSourceContext extends SCMSourceContext<GitLabSCMSourceCont
     private boolean wantTags;
     private boolean wantOriginMRs;
     private boolean wantForkMRs;
+    private boolean wantBranchMRs;
 
     @NonNull
     private Set<ChangeRequestCheckoutStrategy> originMRStrategies = EnumSet.noneOf(ChangeRequestCheckoutStrategy.class);
@@ -97,6 +98,10 @@ public class GitLabSCMSourceContext extends SCMSourceContext<GitLabSCMSourceCont
         return wantForkMRs;
     }
 
+    public final boolean wantBranchMRs() {
+        return wantBranchMRs;
+    }
+
     @NonNull
     public final Set<ChangeRequestCheckoutStrategy> originMRStrategies() {
         return originMRStrategies;
@@ -219,6 +224,19 @@ public class GitLabSCMSourceContext extends SCMSourceContext<GitLabSCMSourceCont
         return this;
     }
 
+    /**
+     * Asks for the origin merge requests of the branches, which branch filters need even when the retrieve is scoped
+     * to some branches only.
+     *
+     * @param include {@code true} if the branch filters need the origin merge requests.
+     * @return {@code this} for method chaining.
+     */
+    @NonNull
+    public GitLabSCMSourceContext wantBranchMRs(boolean include) {
+        wantBranchMRs = wantBranchMRs || include;
+        return this;
+    }
+
     @NonNull
     public GitLabSCMSourceContext wantForkMRs(boolean include) {
         wantForkMRs = wantForkMRs || include;
@@ -1,5 +1,6 @@
 package io.jenkins.plugins.gitlabbranchsource;
 
+import com.google.common.collect.Iterables;
 import edu.umd.cs.findbugs.annotations.CheckForNull;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import hudson.Util;
@@ -45,6 +46,10 @@ public class GitLabSCMSourceRequest extends SCMSourceRequest {
      * {@code true} if fork merge requests need to be fetched.
      */
     private final boolean fetchForkMRs;
+    /**
+     * {@code true} if the origin merge requests of the branches need to be fetched to filter the branches.
+     */
+    private final boolean fetchBranchMRs;
     /**
      * The {@link ChangeRequestCheckoutStrategy} to create for each origin merge
      * request.
@@ -83,6 +88,11 @@ public class GitLabSCMSourceRequest extends SCMSourceRequest {
      */
     @CheckForNull
     private Iterable<MergeRequest> mergeRequests;
+    /**
+     * The merge requests of the requested branches fetched only to filter the branches, or {@code null} if none.
+     */
+    @CheckForNull
+    private Iterable<MergeRequest> branchMergeRequests;
     /**
      * The branch details or {@code null} if not {@link #isFetchBranches()}.
      */
@@ -121,6 +131,7 @@ public class GitLabSCMSourceRequest extends SCMSourceRequest {
         fetchTags = context.wantTags();
         fetchOriginMRs = context.wantOriginMRs();
         fetchForkMRs = context.wantForkMRs();
+        fetchBranchMRs = context.wantBranchMRs();
         originMRStrategies = fetchOriginMRs && !context.originMRStrategies().isEmpty()
                 ? Collections.unmodifiableSet(EnumSet.copyOf(context.originMRStrategies()))
                 : Collections.<ChangeRequestCheckoutStrategy>emptySet();
@@ -190,6 +201,15 @@ public class GitLabSCMSourceRequest extends SCMSourceRequest {
         return fetchOriginMRs;
     }
 
+    /**
+     * Returns {@code true} if the origin merge requests of the branches need to be fetched to filter the branches.
+     *
+     * @return {@code true} if the origin merge requests of the branches need to be fetched.
+     */
+    public final boolean isFetchBranchMRs() {
+        return fetchBranchMRs;
+    }
+
     /**
      * Returns {@code true} if fork merge request details need to be fetched.
      *
@@ -321,6 +341,30 @@ public class GitLabSCMSourceRequest extends SCMSourceRequest {
         this.mergeRequests = mergeRequests;
     }
 
+    /**
+     * Returns the merge requests telling apart the branches filed as merge requests: the merge request details
+     * along with the merge requests of the requested branches provided by
+     * {@link #setBranchMergeRequests(Iterable)}, see {@link #isFetchBranchMRs()}.
+     *
+     * @return the merge requests to filter the branches with (may be empty)
+     */
+    @NonNull
+    public Iterable<MergeRequest> getBranchFilterMergeRequests() {
+        return branchMergeRequests == null
+                ? getMergeRequests()
+                : Iterables.concat(getMergeRequests(), branchMergeRequests);
+    }
+
+    /**
+     * Provides the request with the merge requests of the requested branches, which are only used to filter the
+     * branches and are not built.
+     *
+     * @param branchMergeRequests the merge requests of the requested branches.
+     */
+    public void setBranchMergeRequests(@CheckForNull Iterable<MergeRequest> branchMergeRequests) {
+        this.branchMergeRequests = branchMergeRequests;
+    }
+
     /**
      * Returns the branch details or an empty list if either the request did not
      * specify to {@link
@@ -445,6 +489,9 @@ public class GitLabSCMSourceRequest extends SCMSourceRequest {
         if (branches instanceof Closeable) {
             ((Closeable) branches).close();
         }
+        if (tags instanceof Closeable) {
+            ((Closeable) tags).close();
+        }
         super.close();
     }
 
@@ -1,22 +1,19 @@
 package io.jenkins.plugins.gitlabbranchsource;
 
-import static java.nio.charset.StandardCharsets.UTF_8;
-
-import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import hudson.Extension;
 import hudson.model.UnprotectedRootAction;
 import hudson.security.csrf.CrumbExclusion;
 import hudson.util.HttpResponses;
+import io.jenkins.plugins.gitlabbranchsource.helpers.GitLabHookTokens;
 import io.jenkins.plugins.gitlabserverconfig.servers.GitLabServer;
-import io.jenkins.plugins.gitlabserverconfig.servers.GitLabServers;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.security.MessageDigest;
+import java.util.HashSet;
 import java.util.List;
-import java.util.logging.Level;
+import java.util.Set;
 import java.util.logging.Logger;
 import jenkins.scm.api.SCMEvent;
 import org.apache.commons.lang3.StringUtils;
@@ -74,37 +71,19 @@ public final class GitLabSystemHookAction extends CrumbExclusion implements Unpr
                     "Expecting a GitLab event, missing expected X-Gitlab-Event header");
         }
         String secretToken = request.getHeader("X-Gitlab-Token");
-        if (!isValidToken(secretToken)) {
+        List<GitLabServer> servers = GitLabHookTokens.getServers(secretToken);
+        if (servers.isEmpty()) {
             return HttpResponses.error(HttpServletResponse.SC_UNAUTHORIZED, "Expecting a valid secret token");
         }
+        // system hooks do not say which instance sent them, only the servers accepting the token may be affected
+        Set<String> serverNames = new HashSet<>(servers.size());
+        for (GitLabServer server : servers) {
+            serverNames.add(server.getName());
+        }
         String origin = SCMEvent.originOf(request);
         SystemHookManager systemHookManager = new SystemHookManager();
-        systemHookManager.addListener(new GitLabSystemHookListener(origin));
+        systemHookManager.addListener(new GitLabSystemHookListener(origin, serverNames));
         systemHookManager.handleEvent(request);
         return HttpResponses.ok(); // TODO find a better response
     }
-
-    @SuppressFBWarnings(
-            value = "NP_NULL_PARAM_DEREF",
-            justification = "MessageDigest.isEqual does handle null and spotbugs is wrong")
-    private boolean isValidToken(String secretToken) {
-        try {
-            List<GitLabServer> servers = GitLabServers.get().getServers();
-            byte[] secretTokenBytes = secretToken != null ? secretToken.getBytes(UTF_8) : null;
-            for (GitLabServer server : servers) {
-                String secretTokenAsPlainText = server.getSecretTokenAsPlainText();
-                byte[] secretTokenAsPlainTextBytes =
-                        secretTokenAsPlainText != null ? secretTokenAsPlainText.getBytes(UTF_8) : null;
-                if (MessageDigest.isEqual(secretTokenBytes, secretTokenAsPlainTextBytes)
-                        || (secretTokenAsPlainText != null
-                                && secretTokenAsPlainText.isEmpty()
-                                && secretToken == null)) {
-                    return true;
-                }
-            }
-        } catch (Exception e) {
-            LOGGER.log(Level.WARNING, String.format("Error while validating token: %s", e.getMessage()));
-        }
-        return false;
-    }
 }
@@ -1,12 +1,31 @@
 package io.jenkins.plugins.gitlabbranchsource;
 
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import hudson.model.Item;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import io.jenkins.plugins.gitlabbranchsource.helpers.GitLabListingCache;
+import io.jenkins.plugins.gitlabbranchsource.helpers.GitLabMembersCache;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import jenkins.model.Jenkins;
+import jenkins.scm.api.SCMNavigator;
+import jenkins.scm.api.SCMNavigatorOwner;
+import jenkins.scm.api.SCMSource;
 import jenkins.scm.api.SCMSourceEvent;
+import jenkins.scm.api.SCMSourceOwner;
+import jenkins.scm.api.SCMSourceOwners;
+import jenkins.util.Timer;
+import org.apache.commons.lang3.StringUtils;
+import org.gitlab4j.api.systemhooks.GroupMemberSystemHookEvent;
 import org.gitlab4j.api.systemhooks.GroupSystemHookEvent;
 import org.gitlab4j.api.systemhooks.ProjectSystemHookEvent;
 import org.gitlab4j.api.systemhooks.SystemHookListener;
+import org.gitlab4j.api.systemhooks.TeamMemberSystemHookEvent;
 
 public class GitLabSystemHookListener implements SystemHookListener {
 
@@ -14,21 +33,43 @@ public class GitLabSystemHookListener implements SystemHookListener {
 
     private String origin;
 
+    /**
+     * The names of the servers the hook may come from, {@code null} if unknown.
+     */
+    @CheckForNull
+    private final Set<String> serverNames;
+
     public GitLabSystemHookListener(String origin) {
+        this(origin, null);
+    }
+
+    public GitLabSystemHookListener(String origin, @CheckForNull Set<String> serverNames) {
         this.origin = origin;
+        this.serverNames = serverNames;
     }
 
     @Override
     public void onProjectEvent(ProjectSystemHookEvent projectSystemHookEvent) {
         LOGGER.log(Level.FINE, projectSystemHookEvent.toString());
-        // TODO: implement handling `project_transfer` and `project_renamed`
         switch (projectSystemHookEvent.getEventName()) {
             case ProjectSystemHookEvent.PROJECT_CREATE_EVENT:
             case ProjectSystemHookEvent.PROJECT_DESTROY_EVENT:
             case ProjectSystemHookEvent.PROJECT_UPDATE_EVENT:
+                if (ProjectSystemHookEvent.PROJECT_DESTROY_EVENT.equals(projectSystemHookEvent.getEventName())) {
+                    invalidateListing(projectSystemHookEvent.getProjectId());
+                }
                 GitLabProjectSCMEvent trigger = new GitLabProjectSCMEvent(projectSystemHookEvent, origin);
                 SCMSourceEvent.fireLater(trigger, 5, TimeUnit.SECONDS);
                 break;
+            case ProjectSystemHookEvent.PROJECT_RENAME_EVENT:
+            case ProjectSystemHookEvent.PROJECT_TRANSFER_EVENT:
+                invalidateListing(projectSystemHookEvent.getProjectId());
+                relocate(
+                        projectSystemHookEvent.getProjectId(),
+                        projectSystemHookEvent.getOldPathWithNamespace(),
+                        projectSystemHookEvent.getPathWithNamespace(),
+                        false);
+                break;
             default:
                 LOGGER.log(
                         Level.INFO,
@@ -41,5 +82,123 @@ public class GitLabSystemHookListener implements SystemHookListener {
     @Override
     public void onGroupEvent(GroupSystemHookEvent groupSystemHookEvent) {
         LOGGER.log(Level.FINE, groupSystemHookEvent.toString());
+        if (GroupSystemHookEvent.GROUP_RENAME_EVENT.equals(groupSystemHookEvent.getEventName())) {
+            // only the projects under the renamed group are affected
+            relocate(null, groupSystemHookEvent.getOldFullPath(), groupSystemHookEvent.getFullPath(), true);
+        }
+    }
+
+    /**
+     * Updates in place the navigators and sources of a renamed or transferred project, or of all the projects under
+     * a renamed group, rather than rescanning organizations. Only the items of the servers the hook may come from are
+     * updated. The names of the items are left unchanged, so the projects of an organization folder are only updated
+     * when its navigator names them by project name, otherwise they are left to the next scan of the organization.
+     * Runs in the background, walking all the items and saving them does not belong on the hook request thread.
+     *
+     * @param projectId the id of the project, {@code null} for a group.
+     * @param oldPath   the old path with namespace of the project or the old full path of the group.
+     * @param newPath   the new path with namespace of the project or the new full path of the group.
+     * @param namespace {@code true} if the paths are those of a group.
+     */
+    private void relocate(
+            @CheckForNull Long projectId,
+            @CheckForNull String oldPath,
+            @CheckForNull String newPath,
+            boolean namespace) {
+        if (StringUtils.isBlank(oldPath) || StringUtils.isBlank(newPath) || oldPath.equals(newPath)) {
+            return;
+        }
+        Timer.get().submit(() -> {
+            try (ACLContext ctx = ACL.as2(ACL.SYSTEM2)) {
+                relocateItems(projectId, oldPath, newPath, namespace);
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Failed to relocate " + oldPath + " to " + newPath, e);
+            }
+        });
+    }
+
+    private void relocateItems(@CheckForNull Long projectId, String oldPath, String newPath, boolean namespace) {
+        // the organization folders whose projects are proposed again under a new name by their next scan
+        Set<SCMNavigatorOwner> renaming = new HashSet<>();
+        for (SCMNavigatorOwner owner : Jenkins.get().getAllItems(SCMNavigatorOwner.class)) {
+            boolean changed = false;
+            for (SCMNavigator navigator : owner.getSCMNavigators()) {
+                if (!(navigator instanceof GitLabSCMNavigator)
+                        || !isFromServer(((GitLabSCMNavigator) navigator).getServerName())) {
+                    continue;
+                }
+                GitLabSCMNavigator gitLabSCMNavigator = (GitLabSCMNavigator) navigator;
+                if (!gitLabSCMNavigator.isRelocatedInPlace()) {
+                    renaming.add(owner);
+                } else if (gitLabSCMNavigator.relocateProjects(oldPath, newPath, namespace)) {
+                    changed = true;
+                }
+            }
+            if (changed) {
+                save(owner);
+            }
+        }
+        for (SCMSourceOwner owner : SCMSourceOwners.all()) {
+            if (renaming.contains(owner.getParent())) {
+                // keeps matching the old path until the next scan of the organization orphans it
+                continue;
+            }
+            boolean changed = false;
+            for (SCMSource source : owner.getSCMSources()) {
+                if (!(source instanceof GitLabSCMSource)
+                        || !isFromServer(((GitLabSCMSource) source).getServerName())) {
+                    continue;
+                }
+                GitLabSCMSource gitLabSCMSource = (GitLabSCMSource) source;
+                String projectPath = gitLabSCMSource.getProjectPath();
+                boolean matches = namespace
+                        ? projectPath.startsWith(oldPath + "/")
+                        : projectPath.equals(oldPath)
+                                && (gitLabSCMSource.getProjectId() == null
+                                        || gitLabSCMSource.getProjectId().equals(projectId));
+                if (matches) {
+                    gitLabSCMSource.relocate(newPath + projectPath.substring(oldPath.length()));
+                    changed = true;
+                }
+            }
+            if (changed) {
+                LOGGER.log(Level.INFO, "Relocated {0} to {1} in {2}", new Object[] {
+                    oldPath, newPath, owner.getFullName()
+                });
+                save(owner);
+            }
+        }
+    }
+
+    private static void invalidateListing(@CheckForNull Long projectId) {
+        if (projectId != null) {
+            GitLabListingCache.invalidate(projectId);
+        }
+    }
+
+    private boolean isFromServer(String serverName) {
+        return serverNames == null || serverNames.contains(serverName);
+    }
+
+    private static void save(Item item) {
+        try {
+            item.save();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to save " + item.getFullName(), e);
+        }
+    }
+
+    @Override
+    public void onTeamMemberEvent(TeamMemberSystemHookEvent teamMemberSystemHookEvent) {
+        LOGGER.log(Level.FINE, teamMemberSystemHookEvent.toString());
+        GitLabMembersCache.invalidate(
+                teamMemberSystemHookEvent.getProjectId(), teamMemberSystemHookEvent.getProjectPathWithNamespace());
+    }
+
+    @Override
+    public void onGroupMemberEvent(GroupMemberSystemHookEvent groupMemberSystemHookEvent) {
+        LOGGER.log(Level.FINE, groupMemberSystemHookEvent.toString());
+        // group members are inherited by every project of the group and its subgroups
+        GitLabMembersCache.invalidateAll();
     }
 }
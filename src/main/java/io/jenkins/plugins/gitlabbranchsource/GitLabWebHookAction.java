@@ -2,33 +2,76 @@ package io.jenkins.plugins.gitlabbranchsource;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 
-import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import hudson.Extension;
 import hudson.model.UnprotectedRootAction;
 import hudson.security.csrf.CrumbExclusion;
+import hudson.util.DaemonThreadFactory;
 import hudson.util.HttpResponses;
+import hudson.util.NamingThreadFactory;
+import io.jenkins.plugins.gitlabbranchsource.helpers.GitLabDeliveryCache;
+import io.jenkins.plugins.gitlabbranchsource.helpers.GitLabHookTokens;
 import io.jenkins.plugins.gitlabserverconfig.servers.GitLabServer;
-import io.jenkins.plugins.gitlabserverconfig.servers.GitLabServers;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.security.MessageDigest;
+import java.io.InputStream;
+import java.nio.charset.Charset;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import jenkins.scm.api.SCMEvent;
+import jenkins.util.SystemProperties;
 import org.apache.commons.lang3.StringUtils;
 import org.gitlab4j.api.GitLabApiException;
 import org.gitlab4j.api.WebHookManager;
+import org.gitlab4j.api.webhook.Event;
+import org.gitlab4j.models.utils.JacksonJson;
 import org.kohsuke.stapler.HttpResponse;
 import org.kohsuke.stapler.StaplerRequest2;
+import org.kohsuke.stapler.StaplerResponse2;
 
 @Extension
 public final class GitLabWebHookAction extends CrumbExclusion implements UnprotectedRootAction {
 
     public static final Logger LOGGER = Logger.getLogger(GitLabWebHookAction.class.getName());
+    /**
+     * The maximum number of web hooks waiting to be processed, further web hooks are rejected until the workers
+     * catch up so that GitLab retries them later.
+     */
+    private static final int QUEUE_CAPACITY =
+            SystemProperties.getInteger(GitLabWebHookAction.class.getName() + ".queueCapacity", 1000);
+    /**
+     * The number of threads processing web hooks.
+     */
+    private static final int WORKERS = SystemProperties.getInteger(GitLabWebHookAction.class.getName() + ".workers", 2);
+    /**
+     * How long GitLab is asked to wait before retrying a rejected web hook.
+     */
+    private static final int RETRY_AFTER_SECONDS =
+            SystemProperties.getInteger(GitLabWebHookAction.class.getName() + ".retryAfterSeconds", 30);
+
+    private static final JacksonJson JSON = new JacksonJson();
+
+    /**
+     * Processes the queued web hooks off the request threads.
+     */
+    private final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+            Math.max(1, WORKERS),
+            Math.max(1, WORKERS),
+            60L,
+            TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(Math.max(1, QUEUE_CAPACITY)),
+            new NamingThreadFactory(new DaemonThreadFactory(), getClass().getName()));
+
+    public GitLabWebHookAction() {
+        executor.allowCoreThreadTimeOut(true);
+    }
 
     @Override
     public String getIconFileName() {
@@ -74,37 +117,69 @@ public final class GitLabWebHookAction extends CrumbExclusion implements Unprote
                     "Expecting a GitLab event, missing expected X-Gitlab-Event header");
         }
         String secretToken = request.getHeader("X-Gitlab-Token");
-        if (!isValidToken(secretToken)) {
+        List<GitLabServer> servers = GitLabHookTokens.getServers(secretToken);
+        if (servers.isEmpty()) {
             return HttpResponses.error(HttpServletResponse.SC_UNAUTHORIZED, "Expecting a valid secret token");
         }
         String origin = SCMEvent.originOf(request);
-        WebHookManager webHookManager = new WebHookManager();
-        webHookManager.addListener(new GitLabWebHookListener(origin));
-        webHookManager.handleEvent(request);
-        return HttpResponses.ok(); // TODO find a better response
-    }
-
-    @SuppressFBWarnings(
-            value = "NP_NULL_PARAM_DEREF",
-            justification = "MessageDigest.isEqual does handle null and spotbugs is wrong")
-    private boolean isValidToken(String secretToken) {
+        // the request is only valid until this method returns, the worker gets the body and the headers it needs
+        byte[] body;
+        try (InputStream in = request.getInputStream()) {
+            body = in.readAllBytes();
+        }
+        // duplicates are skipped before any parsing
+        String delivery = GitLabDeliveryCache.getKey(request.getHeader("X-Gitlab-Event-UUID"), type, body);
+        if (!GitLabDeliveryCache.accept(delivery)) {
+            LOGGER.log(Level.FINE, "Skipped duplicate delivery {0} of {1} from {2}", new Object[] {
+                delivery, type, origin
+            });
+            return HttpResponses.status(HttpServletResponse.SC_ACCEPTED);
+        }
+        String characterEncoding = request.getCharacterEncoding();
+        Charset charset = characterEncoding != null ? Charset.forName(characterEncoding) : UTF_8;
+        String requestUrl = request.getRequestURL().toString();
+        String queryString = request.getQueryString();
         try {
-            List<GitLabServer> servers = GitLabServers.get().getServers();
-            byte[] secretTokenBytes = secretToken != null ? secretToken.getBytes(UTF_8) : null;
-            for (GitLabServer server : servers) {
-                String secretTokenAsPlainText = server.getSecretTokenAsPlainText();
-                byte[] secretTokenAsPlainTextBytes =
-                        secretTokenAsPlainText != null ? secretTokenAsPlainText.getBytes(UTF_8) : null;
-                if (MessageDigest.isEqual(secretTokenBytes, secretTokenAsPlainTextBytes)
-                        || (secretTokenAsPlainText != null
-                                && secretTokenAsPlainText.isEmpty()
-                                && secretToken == null)) {
-                    return true;
+            executor.execute(() -> {
+                Event event;
+                try {
+                    event = JSON.unmarshal(Event.class, new String(body, charset));
+                } catch (IOException | RuntimeException e) {
+                    LOGGER.log(Level.WARNING, "Failed to parse " + type + " from " + origin, e);
+                    return;
+                }
+                event.setRequestUrl(requestUrl);
+                event.setRequestQueryString(queryString);
+                try {
+                    WebHookManager webHookManager = new WebHookManager();
+                    webHookManager.addListener(new GitLabWebHookListener(origin, servers));
+                    webHookManager.handleEvent(event);
+                } catch (GitLabApiException | RuntimeException e) {
+                    LOGGER.log(Level.WARNING, "Failed to process " + type + " from " + origin, e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // GitLab retries it later
+            GitLabDeliveryCache.forget(delivery);
+            LOGGER.log(
+                    Level.WARNING,
+                    "Rejected {0} from {1}, {2} web hooks are waiting to be processed",
+                    new Object[] {type, origin, executor.getQueue().size()});
+            return new HttpResponse() {
+                @Override
+                public void generateResponse(StaplerRequest2 req, StaplerResponse2 rsp, Object node) {
+                    rsp.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                    rsp.setHeader("Retry-After", Integer.toString(RETRY_AFTER_SECONDS));
                 }
-            }
-        } catch (Exception e) {
-            LOGGER.log(Level.WARNING, String.format("Error while validating token: %s", e.getMessage()));
+            };
         }
-        return false;
+        return HttpResponses.status(HttpServletResponse.SC_ACCEPTED);
+    }
+
+    /**
+     * The number of web hooks waiting to be processed.
+     */
+    public int getQueueSize() {
+        return executor.getQueue().size();
     }
 }
@@ -1,8 +1,10 @@
 package io.jenkins.plugins.gitlabbranchsource;
 
+import edu.umd.cs.findbugs.annotations.CheckForNull;
 import edu.umd.cs.findbugs.annotations.Nullable;
 import io.jenkins.plugins.gitlabserverconfig.servers.GitLabServer;
 import io.jenkins.plugins.gitlabserverconfig.servers.GitLabServers;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -22,10 +24,25 @@ public class GitLabWebHookListener implements WebHookListener {
 
     private String origin;
 
+    /**
+     * The servers the hook was authenticated for, {@code null} if unknown.
+     */
+    @CheckForNull
+    private List<GitLabServer> servers;
+
     public GitLabWebHookListener(String origin) {
         this.origin = origin;
     }
 
+    /**
+     * @param origin  the origin of the hook.
+     * @param servers the servers accepting the secret token of the hook, usually a single one.
+     */
+    public GitLabWebHookListener(String origin, @CheckForNull List<GitLabServer> servers) {
+        this.origin = origin;
+        this.servers = servers;
+    }
+
     @Override
     public void onNoteEvent(NoteEvent noteEvent) {
         LOGGER.log(Level.FINE, noteEvent.toString());
@@ -41,30 +58,55 @@ public class GitLabWebHookListener implements WebHookListener {
     public void onMergeRequestEvent(MergeRequestEvent mrEvent) {
         LOGGER.log(Level.FINE, mrEvent.toString());
         GitLabMergeRequestTrigger trigger = new GitLabMergeRequestTrigger(mrEvent, origin);
-        fireTrigger(trigger, mrEvent.getProject().getWebUrl());
+        fireTrigger(trigger, mrEvent.getProject().getWebUrl(), mergeRequestHead(mrEvent));
+    }
+
+    /**
+     * Identifies a merge request event for coalescing. Only events {@link GitLabMergeRequestTrigger} decides alike
+     * may replace each other: the action, whether an update changed the code, and the draft status are part of the
+     * key, so that for example a label edit never replaces a pending push to the merge request.
+     *
+     * @param mrEvent the event.
+     * @return the project id, merge request number and kind of event.
+     */
+    static String mergeRequestHead(MergeRequestEvent mrEvent) {
+        MergeRequestEvent.ObjectAttributes attributes = mrEvent.getObjectAttributes();
+        return mrEvent.getProject().getId() + "/!" + attributes.getIid() + "/" + attributes.getAction()
+                + (attributes.getOldrev() != null ? "/code" : "")
+                + (Boolean.TRUE.equals(attributes.getWorkInProgress()) ? "/draft" : "");
     }
 
     @Override
     public void onPushEvent(PushEvent pushEvent) {
         LOGGER.log(Level.FINE, pushEvent.toString());
         GitLabPushSCMEvent trigger = new GitLabPushSCMEvent(pushEvent, origin);
-        fireTrigger(trigger, pushEvent.getProject().getWebUrl());
+        fireTrigger(trigger, pushEvent.getProject().getWebUrl(), pushEvent.getProjectId() + "/" + pushEvent.getRef());
     }
 
     @Override
     public void onTagPushEvent(TagPushEvent tagPushEvent) {
         LOGGER.log(Level.FINE, tagPushEvent.toString());
         GitLabTagPushSCMEvent trigger = new GitLabTagPushSCMEvent(tagPushEvent, origin);
-        fireTrigger(trigger, tagPushEvent.getProject().getWebUrl());
+        fireTrigger(
+                trigger,
+                tagPushEvent.getProject().getWebUrl(),
+                tagPushEvent.getProjectId() + "/" + tagPushEvent.getRef());
     }
 
-    private void fireTrigger(final SCMHeadEvent<?> trigger, final String projectUrl) {
+    /**
+     * Fires the trigger, the delayed events for the same head and kind of event are coalesced.
+     *
+     * @param head identifies the head within the server, the project id and head name or merge request number.
+     */
+    private void fireTrigger(final SCMHeadEvent<?> trigger, final String projectUrl, final String head) {
         final GitLabServer projectServer = findProjectServer(projectUrl);
         if (findImmediateHookTrigger(projectServer)) {
             SCMHeadEvent.fireNow(trigger);
         }
         final long triggerDelay = findTriggerDelay(projectServer);
-        SCMHeadEvent.fireLater(trigger, triggerDelay, TimeUnit.SECONDS);
+        String key = (projectServer != null ? projectServer.getName() : projectUrl) + "/" + head + "/"
+                + trigger.getClass().getSimpleName() + "/" + trigger.getType();
+        GitLabEventCoalescer.fireLater(key, trigger, triggerDelay, TimeUnit.SECONDS);
     }
 
     private boolean findImmediateHookTrigger(@Nullable final GitLabServer projectServer) {
@@ -91,10 +133,14 @@ public class GitLabWebHookListener implements WebHookListener {
     }
 
     private GitLabServer findProjectServer(final String projectUrl) {
-        for (GitLabServer server : GitLabServers.get().getServers()) {
-            if (projectUrl.startsWith(server.getServerUrl())) {
-                return server;
-            }
+        if (servers != null && servers.size() == 1) {
+            // the secret token identifies the server
+            return servers.get(0);
+        }
+        // several servers share the secret token, or no secret at all
+        GitLabServer server = GitLabServers.get().findServerByUrl(projectUrl);
+        if (server != null && (servers == null || servers.contains(server))) {
+            return server;
         }
         LOGGER.log(Level.WARNING, String.format("No GitLab server for project URL: %s", projectUrl));
         return null;
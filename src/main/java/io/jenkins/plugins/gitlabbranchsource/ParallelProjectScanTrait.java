@@ -0,0 +1,81 @@
+package io.jenkins.plugins.gitlabbranchsource;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.util.FormValidation;
+import jenkins.scm.api.SCMNavigator;
+import jenkins.scm.api.trait.SCMNavigatorContext;
+import jenkins.scm.api.trait.SCMNavigatorTrait;
+import jenkins.scm.api.trait.SCMNavigatorTraitDescriptor;
+import org.jenkinsci.Symbol;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.QueryParameter;
+
+/**
+ * A {@link SCMNavigatorTrait} to check several projects of a {@link GitLabSCMNavigator} at the same time.
+ */
+public class ParallelProjectScanTrait extends SCMNavigatorTrait {
+
+    /**
+     * The upper bound on the number of projects checked at the same time.
+     */
+    public static final int MAX_CONCURRENCY = 32;
+
+    /**
+     * The number of projects checked at the same time.
+     */
+    private final int concurrency;
+
+    @DataBoundConstructor
+    public ParallelProjectScanTrait(int concurrency) {
+        this.concurrency = Math.max(1, Math.min(concurrency, MAX_CONCURRENCY));
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void decorateContext(SCMNavigatorContext<?, ?> context) {
+        if (context instanceof GitLabSCMNavigatorContext) {
+            GitLabSCMNavigatorContext ctx = (GitLabSCMNavigatorContext) context;
+            ctx.withConcurrency(getConcurrency());
+        }
+    }
+
+    /**
+     * Our descriptor.
+     */
+    @Symbol("gitLabParallelProjectScan")
+    @Extension
+    public static class DescriptorImpl extends SCMNavigatorTraitDescriptor {
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        @NonNull
+        public String getDisplayName() {
+            return Messages.ParallelProjectScanTrait_displayName();
+        }
+
+        @Override
+        public Class<? extends SCMNavigator> getNavigatorClass() {
+            return GitLabSCMNavigator.class;
+        }
+
+        @Restricted(NoExternalUse.class) // stapler
+        @SuppressWarnings("unused")
+        public FormValidation doCheckConcurrency(@QueryParameter int concurrency) {
+            if (concurrency < 1 || concurrency > MAX_CONCURRENCY) {
+                return FormValidation.error(Messages.ParallelProjectScanTrait_concurrencyOutOfRange(MAX_CONCURRENCY));
+            }
+            return FormValidation.ok();
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package io.jenkins.plugins.gitlabbranchsource.helpers;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Util;
+import io.jenkins.plugins.gitlabserverconfig.servers.GitLabServer;
+import io.jenkins.plugins.gitlabserverconfig.servers.GitLabServers;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.util.SystemProperties;
+import jenkins.util.Timer;
+import org.apache.http.conn.HttpClientConnectionManager;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.gitlab4j.api.GitLabApi;
+import org.glassfish.jersey.apache.connector.ApacheClientProperties;
+
+/**
+ * A registry of the {@link GitLabApi} clients shared across the plugin, keyed by server URL, credential, proxy
+ * configuration and transport settings of the server. Reusing a client reuses its HTTP connector, so keep-alive
+ * connections and TLS sessions survive between calls instead of being set up for every scan, probe or notification.
+ * <p>
+ * Clients must not be mutated by callers (for example with {@link GitLabApi#sudo(String)}), use
+ * {@link GitLabApi#duplicate()} to get a private copy instead, and close that copy once done. Copies share the
+ * connections of the pooled client, which are only released once the pool closes the client.
+ * <p>
+ * Evicted clients are not closed at once, as a long running scan may still be using them. They are closed once they
+ * have not been used for {@link #CLOSE_DELAY_MILLIS} and none of their connections is leased. Getting a client from
+ * the pool or its {@link GitLabRateLimiter} counts as a use.
+ */
+public final class GitLabApiPool {
+
+    public static final Logger LOGGER = Logger.getLogger(GitLabApiPool.class.getName());
+    /**
+     * How long a client may stay unused before it is evicted.
+     */
+    private static final long IDLE_TIMEOUT_MILLIS = SystemProperties.getLong(
+            GitLabApiPool.class.getName() + ".idleTimeoutMillis", TimeUnit.MINUTES.toMillis(30));
+    /**
+     * How long an evicted client must stay unused before it is closed.
+     */
+    private static final long CLOSE_DELAY_MILLIS = SystemProperties.getLong(
+            GitLabApiPool.class.getName() + ".closeDelayMillis", TimeUnit.HOURS.toMillis(1));
+
+    private static final ConcurrentMap<String, PooledClient> clients = new ConcurrentHashMap<>();
+
+    /**
+     * The pooled and evicted clients not closed yet, to record their use.
+     */
+    private static final ConcurrentMap<GitLabApi, PooledClient> open = new ConcurrentHashMap<>();
+
+    private static volatile long lastEviction = System.currentTimeMillis();
+
+    private GitLabApiPool() {}
+
+    /**
+     * Returns the shared client for a server and private token, creating it if needed.
+     *
+     * @param serverUrl    the URL of the GitLab server.
+     * @param privateToken the private token, may be empty for anonymous access.
+     * @return the shared client.
+     */
+    @NonNull
+    public static GitLabApi get(@NonNull String serverUrl, @NonNull String privateToken) {
+        evictIdle();
+        Map<String, Object> proxyConfig = GitLabHelper.getProxyConfig(serverUrl);
+        GitLabServer server = GitLabServers.get().findServerByUrl(serverUrl);
+        // digest so that no secret is kept in the keys
+        String key = Util.getDigestOf(
+                serverUrl + "\n" + privateToken + "\n" + proxyConfig + "\n" + getTransportSettings(server));
+        PooledClient client = clients.computeIfAbsent(key, k -> {
+            Map<String, Object> config = GitLabHelper.getClientConfig(serverUrl, server);
+            HttpClientConnectionManager connectionManager =
+                    (HttpClientConnectionManager) config.get(ApacheClientProperties.CONNECTION_MANAGER);
+            if (connectionManager != null) {
+                // the pool shuts the connection manager down itself, so that closing a duplicate leaves it open
+                config.put(ApacheClientProperties.CONNECTION_MANAGER_SHARED, true);
+            }
+            PooledClient pooled =
+                    new PooledClient(new GitLabApi(serverUrl, privateToken, null, config), connectionManager);
+            open.put(pooled.gitLabApi, pooled);
+            return pooled;
+        });
+        client.lastUsed = System.currentTimeMillis();
+        return client.gitLabApi;
+    }
+
+    /**
+     * Records the use of a client, which delays closing it if it was evicted.
+     *
+     * @param gitLabApi the client, ignored if it does not come from the pool.
+     */
+    static void touch(@NonNull GitLabApi gitLabApi) {
+        PooledClient client = open.get(gitLabApi);
+        if (client != null) {
+            client.lastUsed = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Drops all clients, used when the server configuration changes. Clients still held by callers remain usable
+     * until they are closed.
+     */
+    public static void invalidateAll() {
+        for (String key : clients.keySet()) {
+            PooledClient client = clients.remove(key);
+            if (client != null) {
+                closeLater(client);
+            }
+        }
+    }
+
+    public static int size() {
+        return clients.size();
+    }
+
+    private static String getTransportSettings(@CheckForNull GitLabServer server) {
+        if (server == null) {
+            return "";
+        }
+        return server.getConnectTimeout() + "/" + server.getReadTimeout() + "/" + server.getMaxConnectionsPerRoute();
+    }
+
+    private static void evictIdle() {
+        long now = System.currentTimeMillis();
+        if (now - lastEviction < IDLE_TIMEOUT_MILLIS / 2) {
+            return;
+        }
+        lastEviction = now;
+        boolean evicted = false;
+        for (Map.Entry<String, PooledClient> entry : clients.entrySet()) {
+            PooledClient client = entry.getValue();
+            if (now - client.lastUsed > IDLE_TIMEOUT_MILLIS && clients.remove(entry.getKey(), client)) {
+                closeLater(client);
+                evicted = true;
+            }
+        }
+        if (evicted) {
+            LOGGER.log(Level.FINE, "Evicted idle GitLab clients, {0} remaining", clients.size());
+        }
+    }
+
+    private static void closeLater(PooledClient client) {
+        Timer.get().schedule(() -> closeWhenIdle(client), CLOSE_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private static void closeWhenIdle(PooledClient client) {
+        long idle = System.currentTimeMillis() - client.lastUsed;
+        if (idle < CLOSE_DELAY_MILLIS || client.isLeased()) {
+            // still in use, check again once it may have been idle long enough
+            long delay = Math.max(CLOSE_DELAY_MILLIS - idle, TimeUnit.MINUTES.toMillis(1));
+            Timer.get().schedule(() -> closeWhenIdle(client), delay, TimeUnit.MILLISECONDS);
+            return;
+        }
+        open.remove(client.gitLabApi, client);
+        client.close();
+    }
+
+    private static class PooledClient {
+        private final GitLabApi gitLabApi;
+
+        @CheckForNull
+        private final HttpClientConnectionManager connectionManager;
+
+        private volatile long lastUsed = System.currentTimeMillis();
+
+        PooledClient(GitLabApi gitLabApi, @CheckForNull HttpClientConnectionManager connectionManager) {
+            this.gitLabApi = gitLabApi;
+            this.connectionManager = connectionManager;
+        }
+
+        /**
+         * @return {@code true} if a call is using a connection of the client, only known for pooled connections.
+         */
+        boolean isLeased() {
+            if (!(connectionManager instanceof PoolingHttpClientConnectionManager)) {
+                return false;
+            }
+            return ((PoolingHttpClientConnectionManager) connectionManager).getTotalStats().getLeased() > 0;
+        }
+
+        void close() {
+            try {
+                gitLabApi.close();
+            } finally {
+                if (connectionManager != null) {
+                    connectionManager.shutdown();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package io.jenkins.plugins.gitlabbranchsource.helpers;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.AbortException;
+import hudson.model.TaskListener;
+import io.jenkins.plugins.gitlabserverconfig.servers.GitLabServer;
+import io.jenkins.plugins.gitlabserverconfig.servers.GitLabServers;
+import jakarta.ws.rs.ProcessingException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.model.Jenkins;
+import jenkins.util.SystemProperties;
+import org.gitlab4j.api.GitLabApiException;
+
+/**
+ * Stops calling a GitLab server that is down or degraded, so that scans, probes and status notifications fail fast
+ * instead of each waiting for the HTTP timeouts. The breaker of a server opens after {@link #FAILURE_THRESHOLD}
+ * consecutive failures, counting server errors, connection failures, timeouts and single request calls slower than the
+ * read timeout of the server. Requests the server rejects, such as a {@code 404}, do not count.
+ * While open, calls are refused for {@link #OPEN_MILLIS}, after which a single probe call is let through: the breaker
+ * closes if it succeeds and opens again otherwise.
+ */
+public final class GitLabCircuitBreaker {
+
+    public static final Logger LOGGER = Logger.getLogger(GitLabCircuitBreaker.class.getName());
+    /**
+     * The number of consecutive failures opening the breaker, {@code 0} to disable the breaker.
+     */
+    static int FAILURE_THRESHOLD =
+            SystemProperties.getInteger(GitLabCircuitBreaker.class.getName() + ".failureThreshold", 5);
+    /**
+     * Calls slower than this count as failures, {@code 0} to use the read timeout of the server. The read timeout
+     * bounds each read rather than the whole call, so a call outlasting it is waiting on several slow reads.
+     */
+    static long SLOW_CALL_MILLIS =
+            SystemProperties.getLong(GitLabCircuitBreaker.class.getName() + ".slowCallMillis", 0L);
+    /**
+     * How long calls are refused once the breaker opens.
+     */
+    static long OPEN_MILLIS = SystemProperties.getLong(
+            GitLabCircuitBreaker.class.getName() + ".openMillis", TimeUnit.SECONDS.toMillis(30));
+
+    private static final ConcurrentMap<String, GitLabCircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    private enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final String serverUrl;
+
+    private final AtomicLong rejected = new AtomicLong();
+
+    private State state = State.CLOSED;
+
+    private int failures;
+
+    private long openedAt;
+
+    private GitLabCircuitBreaker(String serverUrl) {
+        this.serverUrl = serverUrl;
+    }
+
+    /**
+     * Returns the breaker of a server.
+     *
+     * @param serverUrl the URL of the server.
+     * @return the breaker shared by all the callers of the server.
+     */
+    @NonNull
+    public static GitLabCircuitBreaker get(@CheckForNull String serverUrl) {
+        return breakers.computeIfAbsent(String.valueOf(serverUrl), GitLabCircuitBreaker::new);
+    }
+
+    /**
+     * Fails a scan early, with an explanation in its log, while the breaker of its server is open.
+     *
+     * @param serverUrl the URL of the server.
+     * @param listener  the listener of the scan.
+     * @throws AbortException if the breaker is open.
+     */
+    public static void checkAvailable(@CheckForNull String serverUrl, @NonNull TaskListener listener)
+            throws AbortException {
+        GitLabCircuitBreaker breaker = get(serverUrl);
+        if (breaker.isOpen()) {
+            String message = breaker.getUnavailableMessage();
+            listener.getLogger().println(message);
+            throw new AbortException(message);
+        }
+    }
+
+    /**
+     * Lets a call through, or refuses it while the breaker is open. Once the open period is over, the first call is
+     * let through as a probe and the others are still refused until it completes.
+     *
+     * @throws GitLabApiException with status {@code 503} if the call is refused.
+     */
+    public void acquire() throws GitLabApiException {
+        if (FAILURE_THRESHOLD <= 0) {
+            return;
+        }
+        synchronized (this) {
+            switch (state) {
+                case CLOSED:
+                    return;
+                case OPEN:
+                case HALF_OPEN:
+                default:
+                    // a probe that did not complete within the open period does not block further probes
+                    long now = System.currentTimeMillis();
+                    if (now - openedAt >= OPEN_MILLIS) {
+                        state = State.HALF_OPEN;
+                        openedAt = now;
+                        LOGGER.log(Level.INFO, "Probing GitLab server {0}", serverUrl);
+                        return;
+                    }
+                    break;
+            }
+        }
+        rejected.incrementAndGet();
+        throw new GitLabApiException(getUnavailableMessage(), 503);
+    }
+
+    /**
+     * Records the outcome of a call let through by {@link #acquire()}.
+     *
+     * @param elapsedMillis how long the call took.
+     * @param failure       the failure of the call or {@code null} if it succeeded.
+     */
+    public void record(long elapsedMillis, @CheckForNull Throwable failure) {
+        if (FAILURE_THRESHOLD <= 0) {
+            return;
+        }
+        record((failure != null && isOutage(failure)) || elapsedMillis > getSlowCallMillis());
+    }
+
+    /**
+     * Records the outcome of a call let through by {@link #acquire()} that fetches all the pages of a listing. Its
+     * duration grows with the listing, so only outages count: a slow page fails with a read timeout.
+     *
+     * @param failure the failure of the call or {@code null} if it succeeded.
+     */
+    public void recordListing(@CheckForNull Throwable failure) {
+        if (FAILURE_THRESHOLD <= 0) {
+            return;
+        }
+        record(failure != null && isOutage(failure));
+    }
+
+    private void record(boolean failed) {
+        synchronized (this) {
+            if (!failed) {
+                if (state != State.CLOSED) {
+                    LOGGER.log(Level.INFO, "GitLab server {0} is available again", serverUrl);
+                }
+                state = State.CLOSED;
+                failures = 0;
+                return;
+            }
+            failures++;
+            if (state == State.HALF_OPEN || (state == State.CLOSED && failures >= FAILURE_THRESHOLD)) {
+                state = State.OPEN;
+                openedAt = System.currentTimeMillis();
+                LOGGER.log(
+                        Level.WARNING,
+                        "GitLab server {0} is unavailable after {1} consecutive failures, refusing calls for {2}ms",
+                        new Object[] {serverUrl, failures, OPEN_MILLIS});
+            }
+        }
+    }
+
+    /**
+     * @return {@code true} if calls are currently refused, not counting the wait for a probe.
+     */
+    public synchronized boolean isOpen() {
+        return state == State.OPEN && System.currentTimeMillis() - openedAt < OPEN_MILLIS;
+    }
+
+    /**
+     * @return the number of calls refused.
+     */
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    private long getSlowCallMillis() {
+        if (SLOW_CALL_MILLIS > 0) {
+            return SLOW_CALL_MILLIS;
+        }
+        GitLabServer server =
+                Jenkins.getInstanceOrNull() != null ? GitLabServers.get().findServerByUrl(serverUrl) : null;
+        int readTimeout = server != null ? server.getReadTimeout() : GitLabServer.DEFAULT_READ_TIMEOUT;
+        // no read timeout, calls may legitimately take forever
+        return readTimeout > 0 ? TimeUnit.SECONDS.toMillis(readTimeout) : Long.MAX_VALUE;
+    }
+
+    private String getUnavailableMessage() {
+        return String.format(
+                "GitLab server %s is unavailable, skipping calls for up to %d seconds", serverUrl, OPEN_MILLIS / 1000);
+    }
+
+    /**
+     * Tells whether a failure means the server is down or degraded, as opposed to a rejected request or a bug: a
+     * server error, or a connection failure or timeout anywhere in the causes of the failure.
+     */
+    static boolean isOutage(@CheckForNull Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof GitLabApiException) {
+                int status = ((GitLabApiException) t).getHttpStatus();
+                if (status >= 500 && status != 501) {
+                    return true;
+                }
+            }
+            // the HTTP client reports connection failures and timeouts as processing failures
+            if (t instanceof ProcessingException
+                    || t instanceof SocketTimeoutException
+                    || t instanceof ConnectException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
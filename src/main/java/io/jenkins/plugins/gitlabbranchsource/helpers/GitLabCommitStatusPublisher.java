@@ -0,0 +1,273 @@
+package io.jenkins.plugins.gitlabbranchsource.helpers;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.model.Jenkins;
+import jenkins.util.SystemProperties;
+import jenkins.util.Timer;
+import org.gitlab4j.api.GitLabApiException;
+import org.springframework.security.core.Authentication;
+
+/**
+ * Publishes commit statuses in the background so that build and queue threads do not wait for GitLab. Statuses are
+ * keyed by project, commit and status name: while a status is waiting to be sent a newer one for the same key
+ * replaces it, so a fast build going from pending to running to success may only send the final state, and the
+ * statuses of a key are always sent one at a time in order. Statuses rejected with {@code 429} or a server error are
+ * retried with an exponential backoff.
+ */
+public final class GitLabCommitStatusPublisher {
+
+    public static final Logger LOGGER = Logger.getLogger(GitLabCommitStatusPublisher.class.getName());
+    /**
+     * The maximum number of keys with statuses waiting to be sent, further statuses are dropped.
+     */
+    private static final int QUEUE_CAPACITY =
+            SystemProperties.getInteger(GitLabCommitStatusPublisher.class.getName() + ".queueCapacity", 1000);
+    /**
+     * The number of threads sending statuses.
+     */
+    private static final int WORKERS =
+            SystemProperties.getInteger(GitLabCommitStatusPublisher.class.getName() + ".workers", 4);
+    /**
+     * The maximum number of attempts to send a status.
+     */
+    static int MAX_ATTEMPTS =
+            SystemProperties.getInteger(GitLabCommitStatusPublisher.class.getName() + ".maxAttempts", 5);
+    /**
+     * The delay before the first retry, doubled for each further retry.
+     */
+    static long RETRY_DELAY_MILLIS = SystemProperties.getLong(
+            GitLabCommitStatusPublisher.class.getName() + ".retryDelayMillis", TimeUnit.SECONDS.toMillis(2));
+
+    private static final ThreadPoolExecutor executor = newExecutor();
+
+    private static final ConcurrentMap<String, Entry> pending = new ConcurrentHashMap<>();
+
+    private static final AtomicLong coalesced = new AtomicLong();
+
+    private static final AtomicLong published = new AtomicLong();
+
+    private static final AtomicLong retried = new AtomicLong();
+
+    private static final AtomicLong failed = new AtomicLong();
+
+    private static final AtomicLong dropped = new AtomicLong();
+
+    private static final AtomicLong latencyMillis = new AtomicLong();
+
+    private GitLabCommitStatusPublisher() {}
+
+    private static ThreadPoolExecutor newExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                Math.max(1, WORKERS),
+                Math.max(1, WORKERS),
+                60L,
+                TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, QUEUE_CAPACITY)),
+                new NamingThreadFactory(new DaemonThreadFactory(), GitLabCommitStatusPublisher.class.getName()));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Sends a status to GitLab.
+     */
+    @FunctionalInterface
+    public interface Request {
+        void send() throws GitLabApiException;
+    }
+
+    /**
+     * Queues a status, replacing the status waiting to be sent for the same key if any. The request is sent with the
+     * authentication of the caller.
+     *
+     * @param key     identifies the status, typically the server, project, commit and status name.
+     * @param request sends the status.
+     */
+    public static void publish(@NonNull String key, @NonNull Request request) {
+        Post post = new Post(request, Jenkins.getAuthentication2());
+        boolean[] created = new boolean[1];
+        pending.compute(key, (k, entry) -> {
+            if (entry == null) {
+                created[0] = true;
+                return new Entry(post);
+            }
+            if (entry.latest != null) {
+                coalesced.incrementAndGet();
+                LOGGER.log(Level.FINE, "Coalesced commit status {0}", key);
+            }
+            entry.latest = post;
+            return entry;
+        });
+        if (created[0]) {
+            // a single task per key at a time, it sends whatever is the latest status when it runs
+            execute(key, null);
+        }
+    }
+
+    /**
+     * @return the number of keys with statuses waiting to be sent.
+     */
+    public static int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * @return the number of keys waiting for a worker.
+     */
+    public static int getQueueSize() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * @return the number of statuses replaced by a newer status before being sent.
+     */
+    public static long getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    /**
+     * @return the number of statuses sent.
+     */
+    public static long getPublishedCount() {
+        return published.get();
+    }
+
+    /**
+     * @return the number of retries.
+     */
+    public static long getRetryCount() {
+        return retried.get();
+    }
+
+    /**
+     * @return the number of statuses GitLab did not accept after all attempts.
+     */
+    public static long getFailedCount() {
+        return failed.get();
+    }
+
+    /**
+     * @return the number of statuses dropped because the queue was full.
+     */
+    public static long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * @return the average time taken by GitLab to accept a status, in milliseconds.
+     */
+    public static long getAverageLatencyMillis() {
+        long count = published.get();
+        return count == 0 ? 0 : latencyMillis.get() / count;
+    }
+
+    private static void execute(String key, @CheckForNull Post retry) {
+        try {
+            executor.execute(() -> drain(key, retry));
+        } catch (RejectedExecutionException e) {
+            pending.remove(key);
+            dropped.incrementAndGet();
+            LOGGER.log(Level.WARNING, "Dropped commit status {0}, {1} statuses are waiting to be sent", new Object[] {
+                key, executor.getQueue().size()
+            });
+        }
+    }
+
+    private static void drain(String key, @CheckForNull Post retry) {
+        for (Post post = next(key, retry); post != null; post = next(key, null)) {
+            long start = System.currentTimeMillis();
+            try (ACLContext ctx = ACL.as2(post.authentication)) {
+                post.request.send();
+                latencyMillis.addAndGet(System.currentTimeMillis() - start);
+                published.incrementAndGet();
+            } catch (GitLabApiException e) {
+                if (isRetryable(e) && post.attempts < MAX_ATTEMPTS) {
+                    retried.incrementAndGet();
+                    long delay = RETRY_DELAY_MILLIS << Math.min(post.attempts - 1, 10);
+                    LOGGER.log(Level.FINE, "Retrying commit status {0} in {1}ms: {2}", new Object[] {
+                        key, delay, e.getMessage()
+                    });
+                    final Post failedPost = post;
+                    // the entry stays in place so that no other task sends a status for the key meanwhile
+                    Timer.get().schedule(() -> execute(key, failedPost), delay, TimeUnit.MILLISECONDS);
+                    return;
+                }
+                failed.incrementAndGet();
+                if (e.getMessage() == null || !e.getMessage().contains("Cannot transition status")) {
+                    LOGGER.log(Level.WARNING, String.format("Exception caught: %s", e.getMessage()));
+                }
+            } catch (RuntimeException e) {
+                failed.incrementAndGet();
+                LOGGER.log(Level.WARNING, "Failed to send commit status " + key, e);
+            }
+        }
+    }
+
+    /**
+     * Takes the next status to send for a key, the latest queued status if any, otherwise the status to retry. The
+     * entry is removed once there is nothing left to send.
+     */
+    @CheckForNull
+    private static Post next(String key, @CheckForNull Post retry) {
+        Post[] result = new Post[1];
+        pending.computeIfPresent(key, (k, entry) -> {
+            if (entry.latest != null) {
+                if (retry != null) {
+                    // superseded while waiting to be retried
+                    coalesced.incrementAndGet();
+                }
+                result[0] = entry.latest;
+                entry.latest = null;
+                return entry;
+            }
+            if (retry != null) {
+                result[0] = retry;
+                return entry;
+            }
+            return null;
+        });
+        if (result[0] != null) {
+            result[0].attempts++;
+        }
+        return result[0];
+    }
+
+    private static boolean isRetryable(GitLabApiException e) {
+        int status = e.getHttpStatus();
+        return status == 429 || status >= 500;
+    }
+
+    private static class Entry {
+        @CheckForNull
+        private Post latest;
+
+        Entry(Post latest) {
+            this.latest = latest;
+        }
+    }
+
+    private static class Post {
+        private final Request request;
+        private final Authentication authentication;
+        private int attempts;
+
+        Post(Request request, Authentication authentication) {
+            this.request = request;
+            this.authentication = authentication;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package io.jenkins.plugins.gitlabbranchsource.helpers;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Util;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import jenkins.util.SystemProperties;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * A controller wide record of the web hook deliveries accepted recently, so that a delivery GitLab retries after a
+ * timeout, or redelivers during an incident, is only processed once. Deliveries are identified by their
+ * {@code X-Gitlab-Event-UUID} header or, for older GitLab versions, a digest of their body, and are remembered for
+ * {@link #WINDOW_MILLIS}.
+ */
+public final class GitLabDeliveryCache {
+
+    /**
+     * How long a delivery is remembered for, GitLab retries a failed delivery within a few minutes.
+     */
+    static long WINDOW_MILLIS = SystemProperties.getLong(
+            GitLabDeliveryCache.class.getName() + ".windowMillis", TimeUnit.MINUTES.toMillis(15));
+    /**
+     * The maximum number of deliveries remembered.
+     */
+    static int MAX_ENTRIES =
+            SystemProperties.getInteger(GitLabDeliveryCache.class.getName() + ".maxEntries", 10000);
+
+    private static final ConcurrentMap<String, Long> deliveries = new ConcurrentHashMap<>();
+
+    private static final AtomicLong duplicates = new AtomicLong();
+
+    private GitLabDeliveryCache() {}
+
+    /**
+     * Identifies a delivery by its event UUID, or by the digest of its body for GitLab versions without one.
+     *
+     * @param uuid the value of the {@code X-Gitlab-Event-UUID} header, {@code null} if missing.
+     * @param type the value of the {@code X-Gitlab-Event} header.
+     * @param body the raw body of the delivery.
+     * @return the key of the delivery.
+     */
+    @NonNull
+    public static String getKey(@CheckForNull String uuid, @NonNull String type, @NonNull byte[] body) {
+        if (StringUtils.isNotBlank(uuid)) {
+            return "uuid:" + uuid;
+        }
+        try {
+            return "body:" + type + ":" + Util.getDigestOf(new ByteArrayInputStream(body));
+        } catch (IOException e) {
+            // reading from memory does not fail
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Records a delivery.
+     *
+     * @param key identifies the delivery.
+     * @return {@code true} if the delivery is new, {@code false} if it was already accepted within the window.
+     */
+    public static boolean accept(@NonNull String key) {
+        if (MAX_ENTRIES <= 0 || WINDOW_MILLIS <= 0) {
+            return true;
+        }
+        long now = System.currentTimeMillis();
+        Long previous = deliveries.putIfAbsent(key, now);
+        if (previous == null) {
+            if (deliveries.size() > MAX_ENTRIES) {
+                evict(now);
+            }
+            return true;
+        }
+        if (now - previous > WINDOW_MILLIS) {
+            // an expired entry not yet evicted
+            return deliveries.replace(key, previous, now);
+        }
+        duplicates.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Forgets a delivery that was not processed after all, so that GitLab retrying it is not considered a duplicate.
+     *
+     * @param key identifies the delivery.
+     */
+    public static void forget(@NonNull String key) {
+        deliveries.remove(key);
+    }
+
+    /**
+     * @return the number of duplicate deliveries skipped.
+     */
+    public static long getDuplicateCount() {
+        return duplicates.get();
+    }
+
+    public static int size() {
+        return deliveries.size();
+    }
+
+    /**
+     * Forgets all deliveries.
+     */
+    public static void invalidateAll() {
+        deliveries.clear();
+    }
+
+    /**
+     * Removes expired entries and, if still full, the oldest delivery.
+     */
+    private static void evict(long now) {
+        deliveries.values().removeIf(accepted -> now - accepted > WINDOW_MILLIS);
+        if (deliveries.size() <= MAX_ENTRIES) {
+            return;
+        }
+        Map.Entry<String, Long> oldest = null;
+        for (Map.Entry<String, Long> candidate : deliveries.entrySet()) {
+            if (oldest == null || candidate.getValue() < oldest.getValue()) {
+                oldest = candidate;
+            }
+        }
+        if (oldest != null) {
+            deliveries.remove(oldest.getKey(), oldest.getValue());
+        }
+    }
+}
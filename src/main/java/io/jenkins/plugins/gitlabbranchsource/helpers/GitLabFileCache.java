@@ -0,0 +1,315 @@
+package io.jenkins.plugins.gitlabbranchsource.helpers;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Util;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+import jenkins.model.Jenkins;
+import jenkins.scm.api.SCMFile;
+import jenkins.util.SystemProperties;
+import org.gitlab4j.api.GitLabApi;
+
+/**
+ * A cache on the controller disk of the types and contents of the files read at a given commit, so that indexing and
+ * lightweight checkouts do not ask GitLab again for the Jenkinsfile of a head whose revision did not change. A commit
+ * never changes, so entries are never stale: they are only evicted, least recently used first, once the cache
+ * exceeds {@link #MAX_SIZE_BYTES} or {@link #MAX_ENTRIES}. Files read at a branch or merge request ref rather than a
+ * commit are not cached.
+ */
+public final class GitLabFileCache {
+
+    public static final Logger LOGGER = Logger.getLogger(GitLabFileCache.class.getName());
+    /**
+     * The maximum total size of the cache, {@code 0} to disable the cache.
+     */
+    static long MAX_SIZE_BYTES =
+            SystemProperties.getLong(GitLabFileCache.class.getName() + ".maxSizeBytes", 50L * 1024 * 1024);
+    /**
+     * The maximum number of cached entries. Most entries are file types of a few bytes, each of which still takes a
+     * file on disk, so that the size alone does not bound the cache.
+     */
+    static int MAX_ENTRIES = SystemProperties.getInteger(GitLabFileCache.class.getName() + ".maxEntries", 10000);
+    /**
+     * The maximum size of a cached file content, larger files are always read from GitLab.
+     */
+    static int MAX_FILE_BYTES =
+            SystemProperties.getInteger(GitLabFileCache.class.getName() + ".maxFileBytes", 512 * 1024);
+
+    private static final Pattern COMMIT = Pattern.compile("[0-9a-f]{40}|[0-9a-f]{64}");
+
+    private static final String TYPE_SUFFIX = ".type";
+
+    private static final String CONTENT_SUFFIX = ".content";
+
+    private static final Object lock = new Object();
+
+    /**
+     * The size of the cached entries by file name, least recently used first, loaded from disk on first use.
+     */
+    private static final LinkedHashMap<String, Long> index = new LinkedHashMap<>(16, 0.75f, true);
+
+    private static boolean loaded;
+
+    private static long size;
+
+    private static final AtomicLong hits = new AtomicLong();
+
+    private static final AtomicLong misses = new AtomicLong();
+
+    private GitLabFileCache() {}
+
+    /**
+     * Returns the cache key of a file.
+     *
+     * @param gitLabApi   the client reading the file.
+     * @param projectPath the path of the project.
+     * @param ref         the ref the file is read at.
+     * @param path        the path of the file.
+     * @return the key, or {@code null} if the file may not be cached as the ref is not a commit.
+     */
+    @CheckForNull
+    public static String getKey(
+            @NonNull GitLabApi gitLabApi, @NonNull String projectPath, @CheckForNull String ref, @NonNull String path) {
+        if (MAX_SIZE_BYTES <= 0 || ref == null || !COMMIT.matcher(ref).matches()) {
+            return null;
+        }
+        // the token is part of the key so that an entry is only served to the credentials that read it
+        return Util.getDigestOf(gitLabApi.getGitLabServerUrl() + "\n" + gitLabApi.getAuthToken() + "\n" + projectPath
+                + "\n" + ref + "\n" + path);
+    }
+
+    /**
+     * @param key the key of the file, may be {@code null}.
+     * @return the cached type of the file or {@code null} if not cached.
+     */
+    @CheckForNull
+    public static SCMFile.Type getType(@CheckForNull String key) {
+        byte[] data = read(key, TYPE_SUFFIX);
+        if (data == null) {
+            return null;
+        }
+        try {
+            return SCMFile.Type.valueOf(new String(data, UTF_8));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Caches the type of a file.
+     *
+     * @param key  the key of the file, nothing is cached if {@code null}.
+     * @param type the type of the file.
+     */
+    public static void putType(@CheckForNull String key, @NonNull SCMFile.Type type) {
+        write(key, TYPE_SUFFIX, type.name().getBytes(UTF_8));
+    }
+
+    /**
+     * @param key the key of the file, may be {@code null}.
+     * @return the cached content of the file or {@code null} if not cached.
+     */
+    @CheckForNull
+    public static InputStream getContent(@CheckForNull String key) {
+        byte[] data = read(key, CONTENT_SUFFIX);
+        return data != null ? new ByteArrayInputStream(data) : null;
+    }
+
+    /**
+     * Caches the content of a file if small enough.
+     *
+     * @param key     the key of the file, nothing is cached if {@code null}.
+     * @param content the content of the file, consumed and closed if cached.
+     * @return a stream of the same content, to be used instead of the original stream.
+     * @throws IOException if the content could not be read.
+     */
+    @NonNull
+    public static InputStream putContent(@CheckForNull String key, @NonNull InputStream content) throws IOException {
+        if (key == null || MAX_FILE_BYTES <= 0) {
+            return content;
+        }
+        byte[] head = content.readNBytes(MAX_FILE_BYTES + 1);
+        if (head.length > MAX_FILE_BYTES) {
+            // too large, hand over what was read followed by the rest of the stream
+            return new SequenceInputStream(new ByteArrayInputStream(head), content);
+        }
+        content.close();
+        write(key, CONTENT_SUFFIX, head);
+        return new ByteArrayInputStream(head);
+    }
+
+    /**
+     * @return the total size of the cached entries, in bytes.
+     */
+    public static long getSize() {
+        synchronized (lock) {
+            return size;
+        }
+    }
+
+    /**
+     * @return the number of lookups answered from the cache.
+     */
+    public static long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of lookups not answered from the cache.
+     */
+    public static long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * Forgets the in memory index, it is loaded again from disk on next use.
+     */
+    static void unload() {
+        synchronized (lock) {
+            index.clear();
+            size = 0;
+            loaded = false;
+        }
+    }
+
+    @CheckForNull
+    private static File getDirectory() {
+        Jenkins jenkins = Jenkins.getInstanceOrNull();
+        return jenkins != null ? new File(jenkins.getRootDir(), "caches/gitlab-branch-source-files") : null;
+    }
+
+    @CheckForNull
+    private static byte[] read(@CheckForNull String key, String suffix) {
+        File directory = getDirectory();
+        if (key == null || directory == null) {
+            return null;
+        }
+        String name = key + suffix;
+        synchronized (lock) {
+            load(directory);
+            // also marks the entry as the most recently used
+            if (index.get(name) == null) {
+                misses.incrementAndGet();
+                return null;
+            }
+        }
+        File file = new File(directory, name);
+        try {
+            byte[] data = Files.readAllBytes(file.toPath());
+            // the modification time keeps the order of use across restarts
+            if (!file.setLastModified(System.currentTimeMillis())) {
+                LOGGER.log(Level.FINE, "Failed to touch cached file {0}", file);
+            }
+            hits.incrementAndGet();
+            return data;
+        } catch (NoSuchFileException e) {
+            remove(name);
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Failed to read cached file " + file, e);
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    private static void write(@CheckForNull String key, String suffix, byte[] data) {
+        File directory = getDirectory();
+        if (key == null || directory == null) {
+            return;
+        }
+        String name = key + suffix;
+        try {
+            Files.createDirectories(directory.toPath());
+            Path temp = Files.createTempFile(directory.toPath(), name, ".tmp");
+            try {
+                Files.write(temp, data);
+                Files.move(
+                        temp,
+                        new File(directory, name).toPath(),
+                        StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Failed to cache file " + name, e);
+            return;
+        }
+        synchronized (lock) {
+            load(directory);
+            Long previous = index.put(name, (long) data.length);
+            size += data.length - (previous != null ? previous : 0);
+            evict(directory);
+        }
+    }
+
+    private static void remove(String name) {
+        synchronized (lock) {
+            Long previous = index.remove(name);
+            if (previous != null) {
+                size -= previous;
+            }
+        }
+    }
+
+    /**
+     * Builds the index from the files on disk, least recently used first. Called with the lock held.
+     */
+    private static void load(File directory) {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        for (File file : files) {
+            if (file.getName().endsWith(".tmp")) {
+                // left over by an interrupted write
+                if (!file.delete()) {
+                    LOGGER.log(Level.FINE, "Failed to delete {0}", file);
+                }
+                continue;
+            }
+            index.put(file.getName(), file.length());
+            size += file.length();
+        }
+        evict(directory);
+    }
+
+    /**
+     * Deletes the least recently used entries until the cache fits. Called with the lock held.
+     */
+    private static void evict(File directory) {
+        Iterator<Map.Entry<String, Long>> it = index.entrySet().iterator();
+        while ((size > MAX_SIZE_BYTES || index.size() > MAX_ENTRIES) && it.hasNext()) {
+            Map.Entry<String, Long> eldest = it.next();
+            File file = new File(directory, eldest.getKey());
+            if (!file.delete() && file.exists()) {
+                LOGGER.log(Level.FINE, "Failed to evict cached file {0}", file);
+            }
+            size -= eldest.getValue();
+            it.remove();
+        }
+    }
+}
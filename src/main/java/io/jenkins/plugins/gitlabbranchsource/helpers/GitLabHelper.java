@@ -17,14 +17,20 @@ import io.jenkins.plugins.gitlabserverconfig.servers.GitLabServer;
 import io.jenkins.plugins.gitlabserverconfig.servers.GitLabServers;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 import jenkins.model.Jenkins;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.eclipse.jgit.annotations.NonNull;
 import org.gitlab4j.api.GitLabApi;
 import org.gitlab4j.api.ProxyClientConfig;
+import org.glassfish.jersey.apache.connector.ApacheClientProperties;
+import org.glassfish.jersey.apache.connector.ApacheConnectorProvider;
+import org.glassfish.jersey.client.ClientProperties;
 import org.jenkinsci.plugins.plaincredentials.StringCredentials;
 
 public class GitLabHelper {
@@ -39,15 +45,49 @@ public class GitLabHelper {
             StandardCredentials credentials = credential != null ? credential : server.getCredentials(context);
             String serverUrl = server.getServerUrl();
             String privateToken = getPrivateTokenAsPlainText(credentials);
-            if (privateToken.equals(GitLabServer.EMPTY_TOKEN)) {
-                return new GitLabApi(serverUrl, GitLabServer.EMPTY_TOKEN, null, getProxyConfig(serverUrl));
-            } else {
-                return new GitLabApi(serverUrl, privateToken, null, getProxyConfig(serverUrl));
-            }
+            return GitLabApiPool.get(serverUrl, privateToken);
         }
         throw new IllegalStateException(String.format("No server found with the name: %s", serverName));
     }
 
+    /**
+     * Returns the configuration of a client of a server: the proxy configuration along with the timeouts and the
+     * connection pool of the server, or the default timeouts if the server is not configured.
+     *
+     * @param serverUrl the URL of the server.
+     * @return the client configuration.
+     */
+    public static Map<String, Object> getClientConfig(String serverUrl) {
+        return getClientConfig(serverUrl, GitLabServers.get().findServerByUrl(serverUrl));
+    }
+
+    /**
+     * Returns the configuration of a client of a server.
+     *
+     * @param serverUrl the URL of the server.
+     * @param server    the server, {@code null} if not configured.
+     * @return the client configuration.
+     */
+    public static Map<String, Object> getClientConfig(String serverUrl, GitLabServer server) {
+        Map<String, Object> proxyConfig = getProxyConfig(serverUrl);
+        Map<String, Object> config = proxyConfig != null ? new HashMap<>(proxyConfig) : new HashMap<>();
+        int connectTimeout = server != null ? server.getConnectTimeout() : GitLabServer.DEFAULT_CONNECT_TIMEOUT;
+        int readTimeout = server != null ? server.getReadTimeout() : GitLabServer.DEFAULT_READ_TIMEOUT;
+        config.put(ClientProperties.CONNECT_TIMEOUT, (int) TimeUnit.SECONDS.toMillis(connectTimeout));
+        config.put(ClientProperties.READ_TIMEOUT, (int) TimeUnit.SECONDS.toMillis(readTimeout));
+        int maxConnections = server != null ? server.getMaxConnectionsPerRoute() : 0;
+        if (maxConnections > 0) {
+            PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+            connectionManager.setDefaultMaxPerRoute(maxConnections);
+            connectionManager.setMaxTotal(maxConnections);
+            config.put(ApacheClientProperties.CONNECTION_MANAGER, connectionManager);
+            // the connection manager is only used by the Apache connector, which gitlab4j otherwise only selects
+            // when a proxy is configured
+            config.put(ClientProperties.CONNECTOR_PROVIDER, ApacheConnectorProvider.class.getName());
+        }
+        return config;
+    }
+
     public static Map<String, Object> getProxyConfig(String serverUrl) {
         ProxyConfiguration proxyConfiguration = Jenkins.get().getProxy();
         if (proxyConfiguration != null) {
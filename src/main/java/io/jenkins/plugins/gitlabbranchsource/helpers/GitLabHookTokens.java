@@ -0,0 +1,153 @@
+package io.jenkins.plugins.gitlabbranchsource.helpers;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.cloudbees.plugins.credentials.SystemCredentialsProvider;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.XmlFile;
+import hudson.model.Saveable;
+import hudson.model.listeners.SaveableListener;
+import io.jenkins.plugins.gitlabserverconfig.servers.GitLabServer;
+import io.jenkins.plugins.gitlabserverconfig.servers.GitLabServers;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.util.SystemProperties;
+
+/**
+ * A controller wide table of the web hook secrets of the configured servers, so that authenticating a hook does not
+ * look up the secret credentials of every server. Only a SHA-256 digest of each secret is kept, incoming tokens are
+ * digested once and compared in constant time against every server. The table is rebuilt on first use after the
+ * servers or the system credentials change, and after {@link #TTL_MILLIS} to pick up secrets held by other
+ * credentials providers.
+ */
+public final class GitLabHookTokens {
+
+    public static final Logger LOGGER = Logger.getLogger(GitLabHookTokens.class.getName());
+    /**
+     * How long the table may be used for before the secrets are looked up again.
+     */
+    static long TTL_MILLIS = SystemProperties.getLong(
+            GitLabHookTokens.class.getName() + ".ttlMillis", TimeUnit.MINUTES.toMillis(5));
+
+    @CheckForNull
+    private static volatile Table table;
+
+    private GitLabHookTokens() {}
+
+    /**
+     * Returns the servers accepting a web hook secret token.
+     *
+     * @param secretToken the value of the {@code X-Gitlab-Token} header, {@code null} if missing.
+     * @return the servers the token is valid for, empty if the token is not valid.
+     */
+    @NonNull
+    public static List<GitLabServer> getServers(@CheckForNull String secretToken) {
+        byte[] digest = secretToken != null ? digest(secretToken) : null;
+        List<GitLabServer> result = new ArrayList<>(1);
+        // no early exit, every entry is compared whatever the token
+        for (Entry entry : getTable().entries) {
+            boolean matches = digest != null
+                    ? entry.digest != null && MessageDigest.isEqual(digest, entry.digest)
+                    : entry.digest == null || entry.empty;
+            if (matches) {
+                result.add(entry.server);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Forgets the table, it is rebuilt on next use.
+     */
+    public static void invalidateAll() {
+        table = null;
+    }
+
+    private static Table getTable() {
+        Table current = table;
+        if (current == null || current.isExpired()) {
+            current = new Table(GitLabServers.get().getServers());
+            table = current;
+        }
+        return current;
+    }
+
+    private static byte[] digest(String token) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(token.getBytes(UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform implements SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class Table {
+        private final List<Entry> entries;
+        private final long built = System.currentTimeMillis();
+
+        Table(List<GitLabServer> servers) {
+            List<Entry> entries = new ArrayList<>(servers.size());
+            for (GitLabServer server : servers) {
+                String secretToken = null;
+                try {
+                    secretToken = server.getSecretTokenAsPlainText();
+                } catch (RuntimeException e) {
+                    LOGGER.log(
+                            Level.WARNING,
+                            String.format("Error while looking up the web hook secret of %s", server.getName()),
+                            e);
+                }
+                entries.add(new Entry(
+                        server, secretToken != null ? digest(secretToken) : null, "".equals(secretToken)));
+            }
+            this.entries = Collections.unmodifiableList(entries);
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() - built > TTL_MILLIS;
+        }
+    }
+
+    private static final class Entry {
+        private final GitLabServer server;
+
+        /**
+         * The digest of the secret or {@code null} if the server has no secret credentials.
+         */
+        @CheckForNull
+        private final byte[] digest;
+
+        /**
+         * {@code true} if the secret is empty, such servers also accept hooks without a token.
+         */
+        private final boolean empty;
+
+        Entry(GitLabServer server, @CheckForNull byte[] digest, boolean empty) {
+            this.server = server;
+            this.digest = digest;
+            this.empty = empty;
+        }
+    }
+
+    /**
+     * Forgets the table when the servers or the system credentials are saved.
+     */
+    @Extension
+    public static class SaveableListenerImpl extends SaveableListener {
+
+        @Override
+        public void onChange(Saveable o, XmlFile file) {
+            if (o instanceof GitLabServers || o instanceof SystemCredentialsProvider) {
+                invalidateAll();
+            }
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package io.jenkins.plugins.gitlabbranchsource.helpers;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import jenkins.util.SystemProperties;
+import org.gitlab4j.api.models.Branch;
+import org.gitlab4j.api.models.Commit;
+import org.gitlab4j.api.models.Tag;
+
+/**
+ * A controller wide cache of the branch and tag listings of projects, keyed by server and project. Each listing is
+ * stored together with a validator, the latest activity of the project when it was listed, and is only reused while
+ * the project reports the same validator, much like a conditional request answered with {@code 304 Not Modified}.
+ * Listings are stored compactly, keeping only the name, revision and commit date of each head, and expire after
+ * {@link #TTL_MILLIS} whatever the validator.
+ */
+public final class GitLabListingCache {
+
+    /**
+     * How long a listing may be reused for, bounding staleness for changes that are not reported as project activity.
+     */
+    static long TTL_MILLIS = SystemProperties.getLong(
+            GitLabListingCache.class.getName() + ".ttlMillis", TimeUnit.HOURS.toMillis(1));
+    /**
+     * The maximum number of projects for which listings are cached.
+     */
+    private static final int MAX_ENTRIES =
+            SystemProperties.getInteger(GitLabListingCache.class.getName() + ".maxEntries", 1000);
+
+    private static final ConcurrentMap<String, Listing> cache = new ConcurrentHashMap<>();
+
+    private static final AtomicLong hits = new AtomicLong();
+
+    private static final AtomicLong misses = new AtomicLong();
+
+    private GitLabListingCache() {}
+
+    /**
+     * Returns the cached listing of a project if it is still valid.
+     *
+     * @param serverName the name of the server hosting the project.
+     * @param projectId  the id of the project.
+     * @param validator  the current validator of the project.
+     * @return the cached listing or {@code null} if not cached, expired or modified since.
+     */
+    @CheckForNull
+    public static Listing get(String serverName, @NonNull Long projectId, @NonNull String validator) {
+        String key = key(serverName, projectId);
+        Listing listing = cache.get(key);
+        if (listing == null || listing.isExpired() || !listing.validator.equals(validator)) {
+            if (listing != null) {
+                cache.remove(key, listing);
+            }
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return listing;
+    }
+
+    /**
+     * Starts recording the listing of a project, the listing is cached once every requested kind of head has been
+     * listed completely.
+     *
+     * @param serverName the name of the server hosting the project.
+     * @param projectId  the id of the project.
+     * @param validator  the validator of the project when it is listed.
+     * @param branches   {@code true} if all the branches are listed.
+     * @param tags       {@code true} if all the tags are listed.
+     * @return the recorder.
+     */
+    @NonNull
+    public static Recorder record(
+            String serverName, @NonNull Long projectId, @NonNull String validator, boolean branches, boolean tags) {
+        return new Recorder(key(serverName, projectId), validator, branches, tags);
+    }
+
+    /**
+     * Invalidates the cached listing of a project on all servers, used when the project is renamed, transferred or
+     * deleted.
+     *
+     * @param projectId the id of the project.
+     */
+    public static void invalidate(@NonNull Long projectId) {
+        String suffix = "/" + projectId;
+        cache.keySet().removeIf(key -> key.endsWith(suffix));
+    }
+
+    /**
+     * Invalidates all cached listings, used when the server configuration changes.
+     */
+    public static void invalidateAll() {
+        cache.clear();
+    }
+
+    public static long getHitCount() {
+        return hits.get();
+    }
+
+    public static long getMissCount() {
+        return misses.get();
+    }
+
+    public static int size() {
+        return cache.size();
+    }
+
+    private static String key(String serverName, Long projectId) {
+        return serverName + "/" + projectId;
+    }
+
+    /**
+     * Removes expired entries and, if still full, the listing that was stored the longest time ago.
+     */
+    private static void evict() {
+        cache.values().removeIf(Listing::isExpired);
+        if (cache.size() < MAX_ENTRIES) {
+            return;
+        }
+        Map.Entry<String, Listing> oldest = null;
+        for (Map.Entry<String, Listing> candidate : cache.entrySet()) {
+            if (oldest == null || candidate.getValue().listed < oldest.getValue().listed) {
+                oldest = candidate;
+            }
+        }
+        if (oldest != null) {
+            cache.remove(oldest.getKey(), oldest.getValue());
+        }
+    }
+
+    /**
+     * The compact listing of the branches and tags of a project.
+     */
+    public static final class Listing {
+        private final String validator;
+        private final long listed = System.currentTimeMillis();
+
+        @CheckForNull
+        private final Heads branches;
+
+        @CheckForNull
+        private final Heads tags;
+
+        Listing(String validator, @CheckForNull Heads branches, @CheckForNull Heads tags) {
+            this.validator = validator;
+            this.branches = branches;
+            this.tags = tags;
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() - listed > TTL_MILLIS;
+        }
+
+        /**
+         * @return the cached branches or {@code null} if the branches were not listed.
+         */
+        @CheckForNull
+        public List<Branch> getBranches() {
+            if (branches == null) {
+                return null;
+            }
+            List<Branch> result = new ArrayList<>(branches.size);
+            for (int i = 0; i < branches.size; i++) {
+                Branch branch = new Branch();
+                branch.setName(branches.names[i]);
+                branch.setCommit(branches.commit(i));
+                result.add(branch);
+            }
+            return result;
+        }
+
+        /**
+         * @return the cached tags or {@code null} if the tags were not listed.
+         */
+        @CheckForNull
+        public List<Tag> getTags() {
+            if (tags == null) {
+                return null;
+            }
+            List<Tag> result = new ArrayList<>(tags.size);
+            for (int i = 0; i < tags.size; i++) {
+                Tag tag = new Tag();
+                tag.setName(tags.names[i]);
+                tag.setCommit(tags.commit(i));
+                result.add(tag);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Records the listing of a project page by page, as it is consumed.
+     */
+    public static final class Recorder {
+        private final String key;
+        private final String validator;
+
+        @CheckForNull
+        private final Heads branches;
+
+        @CheckForNull
+        private final Heads tags;
+
+        private boolean branchesListed;
+        private boolean tagsListed;
+
+        Recorder(String key, String validator, boolean branches, boolean tags) {
+            this.key = key;
+            this.validator = validator;
+            this.branches = branches ? new Heads() : null;
+            this.tags = tags ? new Heads() : null;
+            this.branchesListed = !branches;
+            this.tagsListed = !tags;
+        }
+
+        public void addBranches(List<Branch> page) {
+            if (branches != null) {
+                for (Branch branch : page) {
+                    branches.add(branch.getName(), branch.getCommit());
+                }
+            }
+        }
+
+        public void branchesListed() {
+            branchesListed = true;
+            store();
+        }
+
+        public void addTags(List<Tag> page) {
+            if (tags != null) {
+                for (Tag tag : page) {
+                    tags.add(tag.getName(), tag.getCommit());
+                }
+            }
+        }
+
+        public void tagsListed() {
+            tagsListed = true;
+            store();
+        }
+
+        private void store() {
+            if (!branchesListed || !tagsListed || MAX_ENTRIES <= 0 || TTL_MILLIS <= 0) {
+                return;
+            }
+            if (branches == null && tags == null) {
+                return;
+            }
+            if (cache.size() >= MAX_ENTRIES) {
+                evict();
+            }
+            cache.put(key, new Listing(validator, branches, tags));
+        }
+    }
+
+    /**
+     * Heads stored as parallel arrays rather than full API models.
+     */
+    private static final class Heads {
+        private String[] names = new String[16];
+        private String[] shas = new String[16];
+        private long[] committedDates = new long[16];
+        private int size;
+
+        void add(String name, Commit commit) {
+            if (size == names.length) {
+                int capacity = size * 2;
+                names = Arrays.copyOf(names, capacity);
+                shas = Arrays.copyOf(shas, capacity);
+                committedDates = Arrays.copyOf(committedDates, capacity);
+            }
+            names[size] = name;
+            shas[size] = commit != null ? commit.getId() : null;
+            Date committedDate = commit != null ? commit.getCommittedDate() : null;
+            committedDates[size] = committedDate != null ? committedDate.getTime() : Long.MIN_VALUE;
+            size++;
+        }
+
+        Commit commit(int i) {
+            Commit commit = new Commit();
+            commit.setId(shas[i]);
+            if (committedDates[i] != Long.MIN_VALUE) {
+                commit.setCommittedDate(new Date(committedDates[i]));
+            }
+            return commit;
+        }
+    }
+}
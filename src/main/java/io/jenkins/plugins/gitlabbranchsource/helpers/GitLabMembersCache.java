@@ -0,0 +1,160 @@
+package io.jenkins.plugins.gitlabbranchsource.helpers;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.util.SystemProperties;
+import org.gitlab4j.api.models.AccessLevel;
+
+/**
+ * A controller wide cache of project members, used for trust decisions, keyed by server and project. Entries
+ * expire after {@link #TTL_MILLIS} and are invalidated as soon as a membership system hook is received for the
+ * project.
+ */
+public final class GitLabMembersCache {
+
+    public static final Logger LOGGER = Logger.getLogger(GitLabMembersCache.class.getName());
+    /**
+     * How long the members of a project are cached for.
+     */
+    private static final long TTL_MILLIS = SystemProperties.getLong(
+            GitLabMembersCache.class.getName() + ".ttlMillis", TimeUnit.MINUTES.toMillis(5));
+    /**
+     * The maximum number of projects for which members are cached.
+     */
+    private static final int MAX_ENTRIES =
+            SystemProperties.getInteger(GitLabMembersCache.class.getName() + ".maxEntries", 1000);
+
+    private static final ConcurrentMap<String, CacheEntry> cache = new ConcurrentHashMap<>();
+
+    private static final AtomicLong hits = new AtomicLong();
+
+    private static final AtomicLong misses = new AtomicLong();
+
+    private GitLabMembersCache() {}
+
+    /**
+     * Returns the cached members of a project.
+     *
+     * @param serverName  the name of the server hosting the project.
+     * @param projectId   the id of the project, if known.
+     * @param projectPath the path of the project.
+     * @return a copy of the cached members or {@code null} if not cached or expired.
+     */
+    @CheckForNull
+    public static HashMap<String, AccessLevel> get(String serverName, Long projectId, String projectPath) {
+        String key = key(serverName, projectId, projectPath);
+        CacheEntry entry = cache.get(key);
+        if (entry == null || entry.isExpired()) {
+            if (entry != null) {
+                cache.remove(key, entry);
+            }
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return new HashMap<>(entry.members);
+    }
+
+    /**
+     * Caches the members of a project.
+     *
+     * @param serverName  the name of the server hosting the project.
+     * @param projectId   the id of the project, if known.
+     * @param projectPath the path of the project.
+     * @param members     the members of the project.
+     */
+    public static void put(
+            String serverName, Long projectId, String projectPath, @NonNull Map<String, AccessLevel> members) {
+        if (MAX_ENTRIES <= 0 || TTL_MILLIS <= 0) {
+            return;
+        }
+        if (cache.size() >= MAX_ENTRIES) {
+            evict();
+        }
+        cache.put(key(serverName, projectId, projectPath), new CacheEntry(projectId, projectPath, members));
+    }
+
+    /**
+     * Invalidates the cached members of a project on all servers.
+     *
+     * @param projectId   the id of the project or {@code null} to match on the path only.
+     * @param projectPath the path of the project or {@code null} to match on the id only.
+     */
+    public static void invalidate(Long projectId, String projectPath) {
+        boolean removed = cache.values().removeIf(entry -> (projectId != null && projectId.equals(entry.projectId))
+                || (projectPath != null && projectPath.equals(entry.projectPath)));
+        if (removed) {
+            LOGGER.log(Level.FINE, "Invalidated cached members of project {0} ({1})", new Object[] {
+                projectPath, projectId
+            });
+        }
+    }
+
+    /**
+     * Invalidates all cached members, used when a change may affect any number of projects.
+     */
+    public static void invalidateAll() {
+        cache.clear();
+    }
+
+    public static long getHitCount() {
+        return hits.get();
+    }
+
+    public static long getMissCount() {
+        return misses.get();
+    }
+
+    public static int size() {
+        return cache.size();
+    }
+
+    private static String key(String serverName, Long projectId, String projectPath) {
+        return serverName + "/" + (projectId != null ? projectId.toString() : projectPath);
+    }
+
+    /**
+     * Removes expired entries and, if still full, the entry that was loaded the longest time ago.
+     */
+    private static void evict() {
+        cache.values().removeIf(CacheEntry::isExpired);
+        if (cache.size() < MAX_ENTRIES) {
+            return;
+        }
+        Map.Entry<String, CacheEntry> oldest = null;
+        for (Map.Entry<String, CacheEntry> candidate : cache.entrySet()) {
+            if (oldest == null || candidate.getValue().loaded < oldest.getValue().loaded) {
+                oldest = candidate;
+            }
+        }
+        if (oldest != null) {
+            cache.remove(oldest.getKey(), oldest.getValue());
+        }
+    }
+
+    private static class CacheEntry {
+        private final Long projectId;
+        private final String projectPath;
+        private final Map<String, AccessLevel> members;
+        private final long loaded = System.currentTimeMillis();
+
+        CacheEntry(Long projectId, String projectPath, Map<String, AccessLevel> members) {
+            this.projectId = projectId;
+            this.projectPath = projectPath;
+            this.members = Collections.unmodifiableMap(new HashMap<>(members));
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() - loaded > TTL_MILLIS;
+        }
+    }
+}
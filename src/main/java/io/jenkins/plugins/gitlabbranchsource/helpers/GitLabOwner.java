@@ -22,8 +22,9 @@ public abstract class GitLabOwner {
 
     @NonNull
     public static GitLabOwner fetchOwner(GitLabApi gitLabApi, String projectOwner) {
+        GitLabRateLimiter rateLimiter = GitLabRateLimiter.get(gitLabApi);
         try {
-            Group group = gitLabApi.getGroupApi().getGroup(projectOwner);
+            Group group = rateLimiter.call(() -> gitLabApi.getGroupApi().getGroup(projectOwner));
             return new GitLabGroup(
                     group.getName(),
                     group.getWebUrl(),
@@ -37,7 +38,7 @@ public abstract class GitLabOwner {
             }
 
             try {
-                User user = gitLabApi.getUserApi().getUser(projectOwner);
+                User user = rateLimiter.call(() -> gitLabApi.getUserApi().getUser(projectOwner));
                 // If user is not found, null is returned
                 if (user == null) {
                     throw new IllegalStateException(
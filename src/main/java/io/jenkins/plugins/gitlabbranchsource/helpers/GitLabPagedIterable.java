@@ -0,0 +1,155 @@
+package io.jenkins.plugins.gitlabbranchsource.helpers;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+import org.gitlab4j.api.GitLabApiException;
+import org.gitlab4j.api.Pager;
+
+/**
+ * A single use {@link Iterable} over a GitLab listing that fetches the next page only once the previous one has been
+ * consumed, so that processing starts with the first page and stopping early, or {@link #close() closing}, saves the
+ * remaining requests. Failures to fetch a page are rethrown as {@link UncheckedIOException}.
+ *
+ * @param <T> the type of the listed items.
+ */
+public class GitLabPagedIterable<T> implements Iterable<T>, Closeable {
+
+    private final Pager<T> pager;
+
+    private Consumer<List<T>> pageListener;
+
+    private Runnable exhaustedListener;
+
+    private GitLabRateLimiter rateLimiter;
+
+    private boolean iterated;
+
+    private volatile boolean closed;
+
+    public GitLabPagedIterable(@NonNull Pager<T> pager) {
+        this.pager = pager;
+    }
+
+    /**
+     * @param pageListener notified of each page as it is fetched.
+     * @return {@code this} for method chaining.
+     */
+    @NonNull
+    public GitLabPagedIterable<T> onPage(@NonNull Consumer<List<T>> pageListener) {
+        this.pageListener = pageListener;
+        return this;
+    }
+
+    /**
+     * @param exhaustedListener notified once the last page has been consumed, not if the iteration stops early.
+     * @return {@code this} for method chaining.
+     */
+    @NonNull
+    public GitLabPagedIterable<T> onExhausted(@NonNull Runnable exhaustedListener) {
+        this.exhaustedListener = exhaustedListener;
+        return this;
+    }
+
+    /**
+     * @param rateLimiter paces the fetches of the pages after the first one, which also go through the circuit
+     *                    breaker of the server.
+     * @return {@code this} for method chaining.
+     */
+    @NonNull
+    public GitLabPagedIterable<T> withRateLimiter(@NonNull GitLabRateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+        return this;
+    }
+
+    @NonNull
+    @Override
+    public synchronized Iterator<T> iterator() {
+        if (iterated) {
+            throw new IllegalStateException("A paged GitLab listing can only be iterated once");
+        }
+        iterated = true;
+        return new Iterator<T>() {
+            private Iterator<T> page = Collections.emptyIterator();
+            private boolean exhausted;
+
+            @Override
+            public boolean hasNext() {
+                while (!page.hasNext()) {
+                    if (closed || exhausted) {
+                        return false;
+                    }
+                    if (!pager.hasNext()) {
+                        exhausted = true;
+                        if (exhaustedListener != null) {
+                            exhaustedListener.run();
+                        }
+                        return false;
+                    }
+                    List<T> items = nextPage();
+                    if (pageListener != null) {
+                        pageListener.accept(items);
+                    }
+                    page = items.iterator();
+                }
+                return true;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return page.next();
+            }
+        };
+    }
+
+    private List<T> nextPage() {
+        GitLabCircuitBreaker breaker = null;
+        if (rateLimiter != null) {
+            breaker = rateLimiter.getCircuitBreaker();
+            try {
+                breaker.acquire();
+            } catch (GitLabApiException e) {
+                throw new UncheckedIOException(new IOException("Failed to fetch the next page", e));
+            }
+            rateLimiter.acquire();
+        }
+        long start = System.currentTimeMillis();
+        try {
+            List<T> items = pager.next();
+            if (rateLimiter != null) {
+                breaker.record(System.currentTimeMillis() - start, null);
+                rateLimiter.onSuccess();
+            }
+            return items;
+        } catch (RuntimeException e) {
+            if (rateLimiter != null) {
+                breaker.record(System.currentTimeMillis() - start, e);
+                if (GitLabRateLimiter.isRateLimited(e)) {
+                    rateLimiter.onRateLimited();
+                }
+            }
+            // Pager wraps the API failures of the pages after the first one
+            if (e.getCause() instanceof GitLabApiException) {
+                throw new UncheckedIOException(new IOException("Failed to fetch the next page", e.getCause()));
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Stops the iteration, no further page is fetched.
+     */
+    @Override
+    public void close() {
+        closed = true;
+    }
+}
@@ -20,7 +20,9 @@ import hudson.scm.SCM;
 import hudson.scm.SCMRevisionState;
 import hudson.security.ACL;
 import hudson.security.ACLContext;
+import hudson.util.DaemonThreadFactory;
 import hudson.util.LogTaskListener;
+import hudson.util.NamingThreadFactory;
 import io.jenkins.plugins.gitlabbranchsource.BranchSCMRevision;
 import io.jenkins.plugins.gitlabbranchsource.GitLabSCMSource;
 import io.jenkins.plugins.gitlabbranchsource.GitLabSCMSourceContext;
@@ -28,19 +30,25 @@ import io.jenkins.plugins.gitlabbranchsource.MergeRequestSCMHead;
 import io.jenkins.plugins.gitlabbranchsource.MergeRequestSCMRevision;
 import java.io.File;
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import jenkins.branch.MultiBranchProject;
 import jenkins.plugins.git.GitTagSCMRevision;
 import jenkins.scm.api.SCMHead;
 import jenkins.scm.api.SCMHeadObserver;
 import jenkins.scm.api.SCMRevision;
 import jenkins.scm.api.SCMRevisionAction;
 import jenkins.scm.api.SCMSource;
+import jenkins.util.SystemProperties;
 import org.gitlab4j.api.Constants;
 import org.gitlab4j.api.GitLabApi;
 import org.gitlab4j.api.GitLabApiException;
@@ -65,6 +73,14 @@ public class GitLabPipelineStatusNotifier {
 
     static final Pattern MERGE_REQUEST_JOB_NAME_FORMAT = Pattern.compile("MR-(\\d+)(|-(merge|head))");
 
+    private static final int MAX_SOURCE_PROJECT_IDS =
+            SystemProperties.getInteger(GitLabPipelineStatusNotifier.class.getName() + ".maxSourceProjectIds", 10000);
+
+    /**
+     * The source project ids of merge requests, by server, target project and merge request.
+     */
+    private static final ConcurrentMap<String, Long> sourceProjectIds = new ConcurrentHashMap<>();
+
     private static String getRootUrl(Run<?, ?> build) {
         try {
             return DisplayURLProvider.get().getRunURL(build);
@@ -207,43 +223,47 @@ public class GitLabPipelineStatusNotifier {
         String suffix = " - [Details](" + url + ")";
         SCMRevision revision = SCMRevisionAction.getRevision(source, build);
         try {
-            GitLabApi gitLabApi =
+            GitLabApi pooledApi =
                     GitLabHelper.apiBuilder(build.getParent(), source.getServerName(), source.getCredentialsId());
             String sudoUsername = sourceContext.getSudoUser();
-            if (!sudoUsername.isEmpty()) {
-                gitLabApi.sudo(sudoUsername);
-            }
+            // the client is shared, sudo on a private copy that is closed once the comment is sent
+            GitLabApi gitLabApi = sudoUsername.isEmpty() ? pooledApi : pooledApi.duplicate();
             try {
-                EnvVars envVars = build.getEnvironment(listener);
-                final String buildName = "**" + getStatusName(sourceContext, build, envVars, revision) + ":** ";
-                final String hash;
-                if (revision instanceof BranchSCMRevision) {
-                    hash = ((BranchSCMRevision) revision).getHash();
-                    gitLabApi
-                            .getCommitsApi()
-                            .addComment(source.getProjectPath(), hash, symbol + buildName + note + suffix);
-                } else if (revision instanceof MergeRequestSCMRevision) {
-                    MergeRequestSCMHead head = (MergeRequestSCMHead) revision.getHead();
-                    gitLabApi
-                            .getNotesApi()
-                            .createMergeRequestNote(
-                                    source.getProjectPath(),
-                                    Long.valueOf(head.getId()),
-                                    symbol + buildName + note + suffix,
-                                    null,
-                                    false);
-                } else if (revision instanceof GitTagSCMRevision) {
-                    hash = ((GitTagSCMRevision) revision).getHash();
-                    gitLabApi
-                            .getCommitsApi()
-                            .addComment(source.getProjectPath(), hash, symbol + buildName + note + suffix);
+                if (gitLabApi != pooledApi) {
+                    gitLabApi.sudo(sudoUsername);
+                }
+                try {
+                    EnvVars envVars = build.getEnvironment(listener);
+                    final String buildName = "**" + getStatusName(sourceContext, build, envVars, revision) + ":** ";
+                    final String comment = symbol + buildName + note + suffix;
+                    final String hash;
+                    GitLabRateLimiter rateLimiter = GitLabRateLimiter.get(gitLabApi);
+                    if (revision instanceof BranchSCMRevision) {
+                        hash = ((BranchSCMRevision) revision).getHash();
+                        rateLimiter.call(() ->
+                                gitLabApi.getCommitsApi().addComment(source.getProjectPath(), hash, comment));
+                    } else if (revision instanceof MergeRequestSCMRevision) {
+                        MergeRequestSCMHead head = (MergeRequestSCMHead) revision.getHead();
+                        rateLimiter.call(() -> gitLabApi
+                                .getNotesApi()
+                                .createMergeRequestNote(
+                                        source.getProjectPath(), Long.valueOf(head.getId()), comment, null, false));
+                    } else if (revision instanceof GitTagSCMRevision) {
+                        hash = ((GitTagSCMRevision) revision).getHash();
+                        rateLimiter.call(() ->
+                                gitLabApi.getCommitsApi().addComment(source.getProjectPath(), hash, comment));
+                    }
+                } catch (IOException | InterruptedException e) {
+                    LOGGER.log(
+                            Level.INFO,
+                            "Could not send status notification for " + build.getFullDisplayName() + " to "
+                                    + source.getServerName(),
+                            e);
+                }
+            } finally {
+                if (gitLabApi != pooledApi) {
+                    gitLabApi.close();
                 }
-            } catch (IOException | InterruptedException e) {
-                LOGGER.log(
-                        Level.INFO,
-                        "Could not send status notification for " + build.getFullDisplayName() + " to "
-                                + source.getServerName(),
-                        e);
             }
         } catch (GitLabApiException e) {
             LOGGER.log(Level.WARNING, "Exception caught:" + e, e);
@@ -254,7 +274,6 @@ public class GitLabPipelineStatusNotifier {
      * Retrieves the source project ID for a merge request
      */
     static Long getSourceProjectId(Job job, GitLabApi gitLabApi, String projectPath) {
-        LOGGER.log(Level.INFO, "Getting source project ID from MR");
         Matcher m = MERGE_REQUEST_JOB_NAME_FORMAT.matcher(job.getName());
         if (!m.matches()) {
             LOGGER.log(
@@ -266,9 +285,17 @@ public class GitLabPipelineStatusNotifier {
         }
 
         Long mrId = Long.parseLong(m.group(1));
+        // the source project of a merge request never changes
+        String key = gitLabApi.getGitLabServerUrl() + "/" + projectPath + "!" + mrId;
+        Long cached = sourceProjectIds.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        LOGGER.log(Level.INFO, "Getting source project ID from MR");
         MergeRequest mr;
         try {
-            mr = gitLabApi.getMergeRequestApi().getMergeRequest(projectPath, mrId);
+            mr = GitLabRateLimiter.get(gitLabApi)
+                    .call(() -> gitLabApi.getMergeRequestApi().getMergeRequest(projectPath, mrId));
         } catch (GitLabApiException e) {
             if (!e.getMessage().contains(("Cannot transition status"))) {
                 LOGGER.log(Level.WARNING, String.format("Exception caught: %s", e.getMessage()));
@@ -277,10 +304,67 @@ public class GitLabPipelineStatusNotifier {
         }
         Long sourceProjectId = mr.getSourceProjectId();
         LOGGER.log(Level.INFO, "Got source project ID from MR: {0}", String.valueOf(sourceProjectId));
-
+        if (sourceProjectId != null) {
+            if (sourceProjectIds.size() >= MAX_SOURCE_PROJECT_IDS) {
+                // ids cannot become stale, forgetting any of them is fine
+                sourceProjectIds.keySet().stream().findAny().ifPresent(sourceProjectIds::remove);
+            }
+            sourceProjectIds.put(key, sourceProjectId);
+        }
         return sourceProjectId;
     }
 
+    /**
+     * Returns the revision a queued job is going to build without asking GitLab: the revision the build was scheduled
+     * with, otherwise the revision the job was last indexed at, otherwise the current revision of the head.
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    static SCMRevision getQueuedRevision(
+            Queue.Item item, Job<?, ?> job, GitLabSCMSource source, SCMHead head, TaskListener listener)
+            throws IOException, InterruptedException {
+        for (SCMRevisionAction action : item.getActions(SCMRevisionAction.class)) {
+            SCMRevision revision = action.getRevision();
+            if (source.getId().equals(action.getSourceId()) && head.equals(revision.getHead())) {
+                return revision;
+            }
+        }
+        if (job.getParent() instanceof MultiBranchProject) {
+            SCMRevision revision =
+                    ((MultiBranchProject) job.getParent()).getProjectFactory().getRevision(job);
+            if (revision != null && head.equals(revision.getHead())) {
+                return revision;
+            }
+        }
+        LOGGER.log(Level.FINE, "No known revision for {0}, fetching it", job.getFullName());
+        return source.fetch(head, listener);
+    }
+
+    /**
+     * Queues a commit status, a newer status for the same commit and status name replaces it if it is not sent yet.
+     */
+    private static void publishStatus(
+            final Job<?, ?> job,
+            final GitLabSCMSource source,
+            final SCMRevision revision,
+            final String hash,
+            final Constants.CommitBuildState state,
+            final CommitStatus status) {
+        String key = source.getServerName() + "/" + source.getProjectPath() + "/" + hash + "/" + status.getName();
+        GitLabCommitStatusPublisher.publish(key, () -> {
+            GitLabApi gitLabApi = GitLabHelper.apiBuilder(job, source.getServerName(), source.getCredentialsId());
+            LOGGER.log(Level.FINE, String.format("Notifiying commit: %s", hash));
+            // the publisher retries rejected statuses itself
+            GitLabRateLimiter rateLimiter = GitLabRateLimiter.get(gitLabApi);
+            if (revision instanceof MergeRequestSCMRevision) {
+                Long projectId = getSourceProjectId(job, gitLabApi, source.getProjectPath());
+                rateLimiter.callOnce(() -> gitLabApi.getCommitsApi().addCommitStatus(projectId, hash, state, status));
+            } else {
+                rateLimiter.callOnce(() ->
+                        gitLabApi.getCommitsApi().addCommitStatus(source.getProjectPath(), hash, state, status));
+            }
+        });
+    }
+
     /**
      * Sends notifications to GitLab on Checkout (for the "In Progress" Status).
      */
@@ -371,32 +455,10 @@ public class GitLabPipelineStatusNotifier {
             if (jsl != null) {
                 // we are setting the status, so don't let the queue listener background thread
                 // change it to pending
-                synchronized (jsl.resolving) {
-                    jsl.resolving.remove(build.getParent());
-                }
-            }
-            try {
-                GitLabApi gitLabApi =
-                        GitLabHelper.apiBuilder(build.getParent(), source.getServerName(), source.getCredentialsId());
-                LOGGER.log(Level.FINE, String.format("Notifiying commit: %s", hash));
-
-                if (revision instanceof MergeRequestSCMRevision) {
-                    Long projectId = getSourceProjectId(build.getParent(), gitLabApi, source.getProjectPath());
-                    status.setRef(((MergeRequestSCMRevision) revision)
-                            .getOrigin()
-                            .getHead()
-                            .getName());
-                    gitLabApi.getCommitsApi().addCommitStatus(projectId, hash, state, status);
-                } else {
-                    gitLabApi.getCommitsApi().addCommitStatus(source.getProjectPath(), hash, state, status);
-                }
-
-                listener.getLogger().format("[GitLab Pipeline Status] Notified%n");
-            } catch (GitLabApiException e) {
-                if (!e.getMessage().contains(("Cannot transition status"))) {
-                    LOGGER.log(Level.WARNING, String.format("Exception caught: %s", e.getMessage()));
-                }
+                jsl.resolving.remove(build.getParent());
             }
+            publishStatus(build.getParent(), source, revision, hash, state, status);
+            listener.getLogger().format("[GitLab Pipeline Status] Notification queued%n");
         } catch (IOException | InterruptedException e) {
             LOGGER.log(
                     Level.INFO,
@@ -409,8 +471,71 @@ public class GitLabPipelineStatusNotifier {
     @Extension
     public static class JobScheduledListener extends QueueListener {
 
+        /**
+         * The maximum number of pending statuses waiting to be resolved, the oldest are dropped beyond.
+         */
+        private static final int QUEUE_CAPACITY =
+                SystemProperties.getInteger(JobScheduledListener.class.getName() + ".queueCapacity", 500);
+        /**
+         * The number of threads resolving pending statuses.
+         */
+        private static final int WORKERS =
+                SystemProperties.getInteger(JobScheduledListener.class.getName() + ".workers", 2);
+
         private final AtomicLong nonce = new AtomicLong();
-        private final Map<Job, Long> resolving = new HashMap<>();
+        private final ConcurrentMap<Job, Long> resolving = new ConcurrentHashMap<>();
+        private final AtomicLong dropped = new AtomicLong();
+
+        /**
+         * Resolves the pending statuses, apart from the thread pool used for agent channels.
+         */
+        private final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                Math.max(1, WORKERS),
+                Math.max(1, WORKERS),
+                60L,
+                TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, QUEUE_CAPACITY)),
+                new NamingThreadFactory(new DaemonThreadFactory(), getClass().getName()),
+                this::dropOldest);
+
+        public JobScheduledListener() {
+            executor.allowCoreThreadTimeOut(true);
+        }
+
+        /**
+         * Makes room for a pending status when the queue is full, dropping the statuses superseded by a newer one
+         * for the same job or by the build starting, otherwise the oldest status.
+         */
+        private void dropOldest(Runnable task, ThreadPoolExecutor executor) {
+            if (executor.isShutdown()) {
+                return;
+            }
+            BlockingQueue<Runnable> queue = executor.getQueue();
+            int before = queue.size();
+            queue.removeIf(queued -> queued instanceof PendingTask && ((PendingTask) queued).isSuperseded());
+            int removed = before - queue.size();
+            if (removed == 0 && queue.poll() != null) {
+                removed = 1;
+            }
+            dropped.addAndGet(removed);
+            if (!queue.offer(task)) {
+                dropped.incrementAndGet();
+            }
+        }
+
+        /**
+         * @return the number of pending statuses waiting to be resolved.
+         */
+        public int getQueueSize() {
+            return executor.getQueue().size();
+        }
+
+        /**
+         * @return the number of pending statuses dropped because the queue was full.
+         */
+        public long getDroppedCount() {
+            return dropped.get();
+        }
 
         /**
          * Manages the GitLab Commit Pending Status.
@@ -437,14 +562,16 @@ public class GitLabPipelineStatusNotifier {
                 return;
             }
             final Long nonce = this.nonce.incrementAndGet();
-            synchronized (resolving) {
-                resolving.put(job, nonce);
-            }
+            resolving.put(job, nonce);
             // prevent delays in the queue when updating GitLab
-            Computer.threadPoolForRemoting.submit(() -> {
+            executor.execute(new PendingTask(job, nonce, () -> {
+                if (!nonce.equals(resolving.get(job))) {
+                    // superseded while waiting
+                    return;
+                }
                 try (ACLContext ctx = ACL.as(Tasks.getAuthenticationOf(wi.task))) {
                     final TaskListener listener = new LogTaskListener(LOGGER, Level.INFO);
-                    final SCMRevision revision = source.fetch(head, listener);
+                    final SCMRevision revision = getQueuedRevision(wi, job, source, head, listener);
                     String hash;
                     final CommitStatus status = new CommitStatus();
                     if (revision instanceof BranchSCMRevision) {
@@ -477,40 +604,17 @@ public class GitLabPipelineStatusNotifier {
                     status.setStatus("PENDING");
 
                     Constants.CommitBuildState state = Constants.CommitBuildState.PENDING;
-                    try {
-                        GitLabApi gitLabApi =
-                                GitLabHelper.apiBuilder(job, source.getServerName(), source.getCredentialsId());
-                        // check are we still the task to set pending
-                        synchronized (resolving) {
-                            if (!nonce.equals(resolving.get(job))) {
-                                // it's not our nonce, so drop
-                                LOGGER.log(
-                                        Level.INFO,
-                                        "{0} has already started, skipping notification of queued",
-                                        job.getFullName());
-                                return;
-                            }
-                            // it is our nonce, so remove it
-                            resolving.remove(job);
-                        }
-
-                        if (revision instanceof MergeRequestSCMRevision) {
-                            Long projectId = getSourceProjectId(job, gitLabApi, source.getProjectPath());
-                            status.setRef(((MergeRequestSCMRevision) revision)
-                                    .getOrigin()
-                                    .getHead()
-                                    .getName());
-                            gitLabApi.getCommitsApi().addCommitStatus(projectId, hash, state, status);
-                        } else {
-                            gitLabApi.getCommitsApi().addCommitStatus(source.getProjectPath(), hash, state, status);
-                        }
-
-                        LOGGER.log(Level.INFO, "{0} Notified", job.getFullName());
-                    } catch (GitLabApiException e) {
-                        if (!e.getMessage().contains("Cannot transition status")) {
-                            LOGGER.log(Level.WARNING, String.format("Exception caught: %s", e.getMessage()));
-                        }
+                    // check are we still the task to set pending, if so remove our nonce
+                    if (!resolving.remove(job, nonce)) {
+                        // it's not our nonce, so drop
+                        LOGGER.log(
+                                Level.INFO,
+                                "{0} has already started, skipping notification of queued",
+                                job.getFullName());
+                        return;
                     }
+                    publishStatus(job, source, revision, hash, state, status);
+                    LOGGER.log(Level.INFO, "{0} Notification queued", job.getFullName());
                 } catch (IOException | InterruptedException e) {
                     LOGGER.log(
                             Level.INFO,
@@ -518,7 +622,31 @@ public class GitLabPipelineStatusNotifier {
                                     + source.getServerName(),
                             e);
                 }
-            });
+            }));
+        }
+
+        /**
+         * Resolves and publishes the pending status of a queued job.
+         */
+        private class PendingTask implements Runnable {
+            private final Job<?, ?> job;
+            private final Long nonce;
+            private final Runnable task;
+
+            PendingTask(Job<?, ?> job, Long nonce, Runnable task) {
+                this.job = job;
+                this.nonce = nonce;
+                this.task = task;
+            }
+
+            boolean isSuperseded() {
+                return !nonce.equals(resolving.get(job));
+            }
+
+            @Override
+            public void run() {
+                task.run();
+            }
         }
     }
 
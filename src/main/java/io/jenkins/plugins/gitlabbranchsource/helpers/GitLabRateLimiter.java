@@ -0,0 +1,315 @@
+package io.jenkins.plugins.gitlabbranchsource.helpers;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.util.SystemProperties;
+import org.gitlab4j.api.GitLabApi;
+import org.gitlab4j.api.GitLabApiException;
+
+/**
+ * Paces the calls made to a GitLab server with a token bucket shared by all the callers of the controller, so that
+ * a large organization scan slows down rather than being rate limited. By default calls are not paced until the
+ * server answers {@code 429 Too Many Requests}: the rate then starts at half the rate calls were made at, is halved
+ * again on each further {@code 429} and recovers gradually as calls succeed, until calls are no longer paced. A
+ * fixed ceiling may be set with {@link #RATE_PER_SECOND}. Calls made through {@link #call(Call)} are also retried
+ * when rate limited, and go through the {@link GitLabCircuitBreaker} of the server.
+ */
+public final class GitLabRateLimiter {
+
+    public static final Logger LOGGER = Logger.getLogger(GitLabRateLimiter.class.getName());
+    /**
+     * The highest number of calls per second to a server, {@code 0} to only slow down once the server rate limits
+     * calls.
+     */
+    static double RATE_PER_SECOND =
+            SystemProperties.getInteger(GitLabRateLimiter.class.getName() + ".ratePerSecond", 0);
+    /**
+     * The number of calls that may be made at once after a quiet period.
+     */
+    private static final double BURST =
+            SystemProperties.getInteger(GitLabRateLimiter.class.getName() + ".burst", 40);
+    /**
+     * The lowest rate the limiter slows down to, in calls per second.
+     */
+    private static final double MIN_RATE_PER_SECOND = 0.5;
+    /**
+     * The maximum number of retries of a rate limited call.
+     */
+    private static final int MAX_RETRIES =
+            SystemProperties.getInteger(GitLabRateLimiter.class.getName() + ".maxRetries", 4);
+    /**
+     * The delay before the first retry of a rate limited call, doubled for each further retry.
+     */
+    static long RETRY_DELAY_MILLIS = SystemProperties.getLong(
+            GitLabRateLimiter.class.getName() + ".retryDelayMillis", TimeUnit.SECONDS.toMillis(2));
+
+    private static final ConcurrentMap<String, GitLabRateLimiter> limiters = new ConcurrentHashMap<>();
+
+    private final String serverUrl;
+
+    private final AtomicLong throttled = new AtomicLong();
+
+    private final AtomicLong rateLimited = new AtomicLong();
+
+    /**
+     * The current rate, {@link Double#POSITIVE_INFINITY} while calls are not paced.
+     */
+    private double rate = ceiling();
+
+    /**
+     * The rate the current rate recovers to.
+     */
+    private double maxRate = rate;
+
+    private double tokens = BURST;
+
+    private long refilled = System.nanoTime();
+
+    /**
+     * The start of the current second and the number of calls made in it and in the previous one, measuring the rate
+     * calls are made at while they are not paced.
+     */
+    private long windowStart = System.nanoTime();
+
+    private int windowCalls;
+
+    private int previousWindowCalls;
+
+    private GitLabRateLimiter(String serverUrl) {
+        this.serverUrl = serverUrl;
+    }
+
+    /**
+     * Returns the limiter of a server.
+     *
+     * @param serverUrl the URL of the server.
+     * @return the limiter shared by all the callers of the server.
+     */
+    @NonNull
+    public static GitLabRateLimiter get(@CheckForNull String serverUrl) {
+        return limiters.computeIfAbsent(String.valueOf(serverUrl), GitLabRateLimiter::new);
+    }
+
+    /**
+     * Returns the limiter of the server of a client, recording the use of the client so that the pool does not close
+     * it while in use.
+     *
+     * @param gitLabApi the client.
+     * @return the limiter shared by all the callers of the server.
+     */
+    @NonNull
+    public static GitLabRateLimiter get(@NonNull GitLabApi gitLabApi) {
+        GitLabApiPool.touch(gitLabApi);
+        return get(gitLabApi.getGitLabServerUrl());
+    }
+
+    /**
+     * A call to GitLab.
+     *
+     * @param <T> the type of the result.
+     */
+    @FunctionalInterface
+    public interface Call<T> {
+        T call() throws GitLabApiException;
+    }
+
+    /**
+     * Makes a call once the rate allows, retrying it with an exponential backoff while it is rate limited.
+     *
+     * @param call the call.
+     * @param <T>  the type of the result.
+     * @return the result of the call.
+     * @throws GitLabApiException if the call fails, is still rate limited after all the retries, or the server is
+     *                            unavailable.
+     */
+    public <T> T call(@NonNull Call<T> call) throws GitLabApiException {
+        return call(call, MAX_RETRIES, false);
+    }
+
+    /**
+     * Makes a call once the rate allows, without retrying it, for callers that retry failed calls themselves.
+     *
+     * @param call the call.
+     * @param <T>  the type of the result.
+     * @return the result of the call.
+     * @throws GitLabApiException if the call fails, is rate limited, or the server is unavailable.
+     */
+    public <T> T callOnce(@NonNull Call<T> call) throws GitLabApiException {
+        return call(call, 0, false);
+    }
+
+    /**
+     * Makes a call fetching all the pages of a listing, such as a {@code getAllXxx} or a {@code List} returning
+     * method, like {@link #call(Call)}. Only the first page waits for the rate, and the duration of the call does
+     * not count against the circuit breaker since it grows with the listing.
+     *
+     * @param call the call.
+     * @param <T>  the type of the result.
+     * @return the result of the call.
+     * @throws GitLabApiException if the call fails, is still rate limited after all the retries, or the server is
+     *                            unavailable.
+     */
+    public <T> T callListing(@NonNull Call<T> call) throws GitLabApiException {
+        return call(call, MAX_RETRIES, true);
+    }
+
+    private <T> T call(Call<T> call, int maxRetries, boolean listing) throws GitLabApiException {
+        GitLabCircuitBreaker breaker = GitLabCircuitBreaker.get(serverUrl);
+        Sleeper sleeper = new Sleeper();
+        long delay = RETRY_DELAY_MILLIS;
+        for (int retry = 0; ; retry++) {
+            breaker.acquire();
+            acquire();
+            long start = System.currentTimeMillis();
+            try {
+                T result = call.call();
+                record(breaker, start, null, listing);
+                onSuccess();
+                return result;
+            } catch (GitLabApiException | RuntimeException e) {
+                record(breaker, start, e, listing);
+                if (!isRateLimited(e)) {
+                    throw e;
+                }
+                onRateLimited();
+                if (retry >= maxRetries) {
+                    throw e;
+                }
+                LOGGER.log(Level.FINE, "Rate limited by {0}, retrying in {1}ms", new Object[] {serverUrl, delay});
+                try {
+                    sleeper.sleep(delay);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+                delay *= 2;
+            }
+        }
+    }
+
+    private static void record(
+            GitLabCircuitBreaker breaker, long start, @CheckForNull Throwable failure, boolean listing) {
+        if (listing) {
+            breaker.recordListing(failure);
+        } else {
+            breaker.record(System.currentTimeMillis() - start, failure);
+        }
+    }
+
+    /**
+     * Waits until the rate allows one more call. An interrupted wait returns early with the interrupt flag set.
+     */
+    public void acquire() {
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            if (now - windowStart >= TimeUnit.SECONDS.toNanos(1)) {
+                previousWindowCalls = now - windowStart < TimeUnit.SECONDS.toNanos(2) ? windowCalls : 0;
+                windowCalls = 0;
+                windowStart = now;
+            }
+            windowCalls++;
+            if (Double.isInfinite(rate)) {
+                return;
+            }
+            tokens = Math.min(BURST, tokens + (now - refilled) * rate / TimeUnit.SECONDS.toNanos(1));
+            refilled = now;
+            // reserve the token, possibly ahead of time, then wait outside of the lock
+            tokens -= 1;
+            waitNanos = tokens >= 0 ? 0 : (long) (-tokens * TimeUnit.SECONDS.toNanos(1) / rate);
+        }
+        if (waitNanos > 0) {
+            throttled.incrementAndGet();
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Records a successful call, which lets the rate recover.
+     */
+    public synchronized void onSuccess() {
+        if (rate < maxRate) {
+            rate = Math.min(maxRate, rate + maxRate / 50);
+            if (rate >= maxRate) {
+                // back to the ceiling, or to not pacing calls at all
+                rate = ceiling();
+                maxRate = rate;
+            }
+        }
+    }
+
+    /**
+     * Records a rate limited call, which halves the rate, or starts pacing calls at half the rate they were made at.
+     */
+    public void onRateLimited() {
+        rateLimited.incrementAndGet();
+        synchronized (this) {
+            if (Double.isInfinite(rate)) {
+                // the rate the server started rejecting calls at is the one to recover to
+                maxRate = Math.max(MIN_RATE_PER_SECOND, Math.max(windowCalls, previousWindowCalls));
+                rate = maxRate;
+                tokens = 0;
+                refilled = System.nanoTime();
+            }
+            rate = Math.max(MIN_RATE_PER_SECOND, rate / 2);
+        }
+        LOGGER.log(Level.INFO, "Rate limited by {0}, slowing down", serverUrl);
+    }
+
+    private static double ceiling() {
+        return RATE_PER_SECOND > 0 ? RATE_PER_SECOND : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * @return the circuit breaker of the server.
+     */
+    @NonNull
+    public GitLabCircuitBreaker getCircuitBreaker() {
+        return GitLabCircuitBreaker.get(serverUrl);
+    }
+
+    /**
+     * @return the current rate, in calls per second, {@link Double#POSITIVE_INFINITY} while calls are not paced.
+     */
+    public synchronized double getRate() {
+        return rate;
+    }
+
+    /**
+     * @return the number of calls that had to wait for the rate to allow them.
+     */
+    public long getThrottledCount() {
+        return throttled.get();
+    }
+
+    /**
+     * @return the number of calls the server rate limited.
+     */
+    public long getRateLimitedCount() {
+        return rateLimited.get();
+    }
+
+    /**
+     * Tells whether a failure is the server rate limiting the call, including the failures of pages wrapped by
+     * {@link org.gitlab4j.api.Pager}.
+     *
+     * @param e the failure.
+     * @return {@code true} if the server answered {@code 429 Too Many Requests}.
+     */
+    public static boolean isRateLimited(@CheckForNull Throwable e) {
+        if (e instanceof GitLabApiException) {
+            return ((GitLabApiException) e).getHttpStatus() == 429;
+        }
+        return e != null && e.getCause() instanceof GitLabApiException && isRateLimited(e.getCause());
+    }
+}
@@ -2,7 +2,7 @@ package io.jenkins.plugins.gitlabbranchsource.helpers;
 
 public class Sleeper {
 
-    public void sleep(int millis) throws InterruptedException {
+    public void sleep(long millis) throws InterruptedException {
         Thread.sleep(millis);
     }
 }
@@ -1,8 +1,8 @@
 package io.jenkins.plugins.gitlabserverconfig.servers;
 
 import static com.cloudbees.plugins.credentials.domains.URIRequirementBuilder.fromUri;
+import static io.jenkins.plugins.gitlabbranchsource.helpers.GitLabHelper.getClientConfig;
 import static io.jenkins.plugins.gitlabbranchsource.helpers.GitLabHelper.getPrivateTokenAsPlainText;
-import static io.jenkins.plugins.gitlabbranchsource.helpers.GitLabHelper.getProxyConfig;
 import static org.apache.commons.lang3.StringUtils.defaultIfBlank;
 
 import com.cloudbees.plugins.credentials.CredentialsMatcher;
@@ -74,6 +74,14 @@ public class GitLabServer extends AbstractDescribableImpl<GitLabServer> {
      * credentialsId.
      */
     public static final String EMPTY_TOKEN = "";
+    /**
+     * Used as default connect timeout, in seconds.
+     */
+    public static final int DEFAULT_CONNECT_TIMEOUT = 10;
+    /**
+     * Used as default read timeout, in seconds.
+     */
+    public static final int DEFAULT_READ_TIMEOUT = 60;
 
     public static final Logger LOGGER = Logger.getLogger(GitLabServer.class.getName());
     private static final SecureRandom RANDOM = new SecureRandom();
@@ -156,6 +164,21 @@ public class GitLabServer extends AbstractDescribableImpl<GitLabServer> {
      */
     private Integer hookTriggerDelay;
 
+    /**
+     * Timeout in seconds to connect to the server, {@code null} to use {@link #DEFAULT_CONNECT_TIMEOUT}.
+     */
+    private Integer connectTimeout;
+
+    /**
+     * Timeout in seconds to read a response from the server, {@code null} to use {@link #DEFAULT_READ_TIMEOUT}.
+     */
+    private Integer readTimeout;
+
+    /**
+     * Maximum number of concurrent connections to the server per client, {@code 0} to not pool connections.
+     */
+    private int maxConnectionsPerRoute;
+
     /**
      * Data Bound Constructor for only mandatory parameter serverUrl
      *
@@ -482,6 +505,63 @@ public class GitLabServer extends AbstractDescribableImpl<GitLabServer> {
         return this.hookTriggerDelay;
     }
 
+    /**
+     * @return Timeout in seconds to connect to the server, {@code 0} for no timeout.
+     */
+    public int getConnectTimeout() {
+        return connectTimeout != null ? connectTimeout : DEFAULT_CONNECT_TIMEOUT;
+    }
+
+    /**
+     * Data Bound Setter for the connect timeout.
+     *
+     * @param connectTimeout Timeout in seconds to connect to the server, {@code 0}
+     *                       for no timeout.
+     */
+    @DataBoundSetter
+    public void setConnectTimeout(int connectTimeout) {
+        this.connectTimeout = Math.max(0, connectTimeout);
+    }
+
+    /**
+     * @return Timeout in seconds to read a response from the server, {@code 0} for
+     *         no timeout.
+     */
+    public int getReadTimeout() {
+        return readTimeout != null ? readTimeout : DEFAULT_READ_TIMEOUT;
+    }
+
+    /**
+     * Data Bound Setter for the read timeout.
+     *
+     * @param readTimeout Timeout in seconds to read a response from the server,
+     *                    {@code 0} for no timeout.
+     */
+    @DataBoundSetter
+    public void setReadTimeout(int readTimeout) {
+        this.readTimeout = Math.max(0, readTimeout);
+    }
+
+    /**
+     * @return Maximum number of concurrent connections to the server per client,
+     *         {@code 0} to not pool connections.
+     */
+    public int getMaxConnectionsPerRoute() {
+        return maxConnectionsPerRoute;
+    }
+
+    /**
+     * Data Bound Setter for the maximum number of connections per route.
+     *
+     * @param maxConnectionsPerRoute Maximum number of concurrent connections to
+     *                               the server per client, {@code 0} to not pool
+     *                               connections.
+     */
+    @DataBoundSetter
+    public void setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+        this.maxConnectionsPerRoute = Math.max(0, maxConnectionsPerRoute);
+    }
+
     /**
      * Our descriptor.
      */
@@ -507,13 +587,15 @@ public class GitLabServer extends AbstractDescribableImpl<GitLabServer> {
             if (GITLAB_SERVER_URL.equals(serverUrl)) {
                 LOGGER.log(Level.FINEST, String.format("Community version of GitLab: %s", serverUrl));
             }
-            GitLabApi gitLabApi = new GitLabApi(serverUrl, "", null, getProxyConfig(serverUrl));
+            GitLabApi gitLabApi = new GitLabApi(serverUrl, "", null, getClientConfig(serverUrl));
             try {
                 gitLabApi.getProjectApi().getProjects(1, 1);
                 return FormValidation.ok();
             } catch (GitLabApiException e) {
                 LOGGER.log(Level.FINEST, String.format("Invalid GitLab Server Url: %s", serverUrl));
                 return FormValidation.error(Messages.GitLabServer_invalidUrl(serverUrl));
+            } finally {
+                gitLabApi.close();
             }
         }
 
@@ -560,6 +642,48 @@ public class GitLabServer extends AbstractDescribableImpl<GitLabServer> {
             }
         }
 
+        /**
+         * Checks that the supplied connect timeout is valid.
+         *
+         * @param connectTimeout the timeout to be checked.
+         * @return the validation results.
+         */
+        public static FormValidation doCheckConnectTimeout(@QueryParameter String connectTimeout) {
+            return checkNonNegative(connectTimeout, "connect timeout");
+        }
+
+        /**
+         * Checks that the supplied read timeout is valid.
+         *
+         * @param readTimeout the timeout to be checked.
+         * @return the validation results.
+         */
+        public static FormValidation doCheckReadTimeout(@QueryParameter String readTimeout) {
+            return checkNonNegative(readTimeout, "read timeout");
+        }
+
+        /**
+         * Checks that the supplied maximum number of connections per route is valid.
+         *
+         * @param maxConnectionsPerRoute the number to be checked.
+         * @return the validation results.
+         */
+        public static FormValidation doCheckMaxConnectionsPerRoute(@QueryParameter String maxConnectionsPerRoute) {
+            return checkNonNegative(maxConnectionsPerRoute, "maximum number of connections");
+        }
+
+        private static FormValidation checkNonNegative(String value, String description) {
+            try {
+                if (!value.isEmpty() && Integer.parseInt(value) < 0) {
+                    return FormValidation.error("Invalid %s (must not be negative)", description);
+                }
+                return FormValidation.ok();
+            } catch (NumberFormatException e) {
+                LOGGER.log(Level.FINEST, "Invalid {0}: {1}", new Object[] {description, value});
+                return FormValidation.error("Invalid %s (%s)", description, e.getMessage());
+            }
+        }
+
         @NonNull
         @Override
         public String getDisplayName() {
@@ -573,7 +697,7 @@ public class GitLabServer extends AbstractDescribableImpl<GitLabServer> {
             StandardCredentials credentials = getCredentials(serverUrl, credentialsId);
             String privateToken = getPrivateTokenAsPlainText(credentials);
             if (privateToken.equals(EMPTY_TOKEN)) {
-                GitLabApi gitLabApi = new GitLabApi(serverUrl, EMPTY_TOKEN, null, getProxyConfig(serverUrl));
+                GitLabApi gitLabApi = new GitLabApi(serverUrl, EMPTY_TOKEN, null, getClientConfig(serverUrl));
                 try {
                     /*
                      * In order to validate a GitLab Server without personal access token,
@@ -587,9 +711,11 @@ public class GitLabServer extends AbstractDescribableImpl<GitLabServer> {
                     LOGGER.log(Level.SEVERE, "Invalid GitLab Server Url");
                     return FormValidation.errorWithMarkup(
                             Messages.GitLabServer_credentialsNotResolved(Util.escape(credentialsId)));
+                } finally {
+                    gitLabApi.close();
                 }
             } else {
-                GitLabApi gitLabApi = new GitLabApi(serverUrl, privateToken, null, getProxyConfig(serverUrl));
+                GitLabApi gitLabApi = new GitLabApi(serverUrl, privateToken, null, getClientConfig(serverUrl));
                 try {
                     User user = gitLabApi.getUserApi().getCurrentUser();
                     LOGGER.log(
@@ -600,6 +726,8 @@ public class GitLabServer extends AbstractDescribableImpl<GitLabServer> {
                     LOGGER.log(
                             Level.SEVERE, String.format("Failed to connect with GitLab Server - %s", e.getMessage()));
                     return FormValidation.error(e, Messages.GitLabServer_failedValidation(Util.escape(e.getMessage())));
+                } finally {
+                    gitLabApi.close();
                 }
             }
         }
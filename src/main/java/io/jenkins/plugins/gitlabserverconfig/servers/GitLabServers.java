@@ -12,9 +12,13 @@ import hudson.model.Descriptor;
 import hudson.model.PersistentDescriptor;
 import hudson.security.Permission;
 import hudson.util.ListBoxModel;
+import io.jenkins.plugins.gitlabbranchsource.helpers.GitLabApiPool;
+import io.jenkins.plugins.gitlabbranchsource.helpers.GitLabHookTokens;
+import io.jenkins.plugins.gitlabbranchsource.helpers.GitLabListingCache;
 import io.jenkins.plugins.gitlabserverconfig.servers.helpers.GitLabPersonalAccessTokenCreator;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -41,6 +45,11 @@ public class GitLabServers extends GlobalConfiguration implements PersistentDesc
      */
     private List<GitLabServer> servers;
 
+    /**
+     * The lookup snapshot of {@link #servers}, rebuilt whenever the list is replaced.
+     */
+    private transient volatile Index index;
+
     @NonNull
     @Override
     public Permission getRequiredGlobalConfigPagePermission() {
@@ -96,7 +105,18 @@ public class GitLabServers extends GlobalConfiguration implements PersistentDesc
             // easier for a new user
             servers.add(new GitLabServer(GitLabServer.GITLAB_SERVER_URL, GitLabServer.GITLAB_SERVER_DEFAULT_NAME, ""));
         }
-        return Collections.unmodifiableList(servers);
+        return getIndex().servers;
+    }
+
+    private Index getIndex() {
+        Index current = index;
+        List<GitLabServer> servers = this.servers;
+        // the list is replaced rather than modified, including when the configuration is loaded
+        if (current == null || current.source != servers) {
+            current = new Index(servers != null ? servers : Collections.emptyList());
+            index = current;
+        }
+        return current;
     }
 
     /**
@@ -110,6 +130,9 @@ public class GitLabServers extends GlobalConfiguration implements PersistentDesc
                 .filter(distinctByKey(GitLabServer::getName))
                 .collect(Collectors.toList());
         save();
+        GitLabApiPool.invalidateAll();
+        GitLabHookTokens.invalidateAll();
+        GitLabListingCache.invalidateAll();
     }
 
     @NonNull
@@ -192,11 +215,38 @@ public class GitLabServers extends GlobalConfiguration implements PersistentDesc
      */
     @CheckForNull
     public GitLabServer findServer(@CheckForNull String serverName) {
-        List<GitLabServer> servers = new ArrayList<>(getServers());
-        return servers.stream()
-                .filter(server -> server.getName().equals(serverName))
-                .findAny()
-                .orElse(null);
+        if (serverName == null) {
+            return null;
+        }
+        getServers();
+        return getIndex().byName.get(serverName);
+    }
+
+    /**
+     * Finds the server hosting a URL, that is the server with the longest URL the supplied URL starts with.
+     *
+     * @param url the URL of a project or of any other resource of a server.
+     * @return the global configuration for the server hosting the URL or {@code null} if not defined.
+     */
+    @CheckForNull
+    public GitLabServer findServerByUrl(@CheckForNull String url) {
+        if (url == null) {
+            return null;
+        }
+        getServers();
+        Map<String, GitLabServer> byUrl = getIndex().byUrl;
+        String prefix = StringUtils.removeEnd(url, "/");
+        while (true) {
+            GitLabServer server = byUrl.get(prefix);
+            if (server != null) {
+                return server;
+            }
+            int slash = prefix.lastIndexOf('/');
+            if (slash <= 0) {
+                return null;
+            }
+            prefix = prefix.substring(0, slash);
+        }
     }
 
     @Initializer(after = InitMilestone.EXTENSIONS_AUGMENTED)
@@ -210,4 +260,27 @@ public class GitLabServers extends GlobalConfiguration implements PersistentDesc
             servers.save();
         }
     }
+
+    /**
+     * An immutable snapshot of the servers indexed by name and by URL.
+     */
+    private static final class Index {
+        private final List<GitLabServer> source;
+        private final List<GitLabServer> servers;
+        private final Map<String, GitLabServer> byName;
+        private final Map<String, GitLabServer> byUrl;
+
+        Index(List<GitLabServer> source) {
+            this.source = source;
+            this.servers = Collections.unmodifiableList(new ArrayList<>(source));
+            Map<String, GitLabServer> byName = new HashMap<>();
+            Map<String, GitLabServer> byUrl = new HashMap<>();
+            for (GitLabServer server : servers) {
+                byName.putIfAbsent(server.getName(), server);
+                byUrl.putIfAbsent(StringUtils.removeEnd(server.getServerUrl(), "/"), server);
+            }
+            this.byName = Collections.unmodifiableMap(byName);
+            this.byUrl = Collections.unmodifiableMap(byUrl);
+        }
+    }
 }
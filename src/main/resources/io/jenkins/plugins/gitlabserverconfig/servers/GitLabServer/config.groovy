@@ -43,6 +43,15 @@ f.advanced() {
     f.entry(title: _("Web Hook trigger delay"), field: "hookTriggerDelay", "description": "Delay in seconds to be used for GitLab Web Hook build triggers (defaults to GitLab cache timeout)") {
         f.textbox()
     }
+    f.entry(title: _("Connect timeout"), field: "connectTimeout", "description": "Timeout in seconds to connect to the server (0 for no timeout)") {
+        f.textbox(default: GitLabServer.DEFAULT_CONNECT_TIMEOUT)
+    }
+    f.entry(title: _("Read timeout"), field: "readTimeout", "description": "Timeout in seconds to read a response from the server (0 for no timeout)") {
+        f.textbox(default: GitLabServer.DEFAULT_READ_TIMEOUT)
+    }
+    f.entry(title: _("Maximum connections"), field: "maxConnectionsPerRoute", "description": "Maximum number of concurrent connections to the server per credentials (0 to not pool connections)") {
+        f.textbox(default: 0)
+    }
 }
 
 f.validateButton(
@@ -0,0 +1,92 @@
+package io.jenkins.plugins.gitlabbranchsource;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+
+import java.util.concurrent.TimeUnit;
+import org.gitlab4j.api.webhook.EventProject;
+import org.gitlab4j.api.webhook.MergeRequestEvent;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+public class GitLabEventCoalescerTest {
+
+    @ClassRule
+    public static JenkinsRule j = new JenkinsRule();
+
+    @Test
+    public void nonCodeUpdateDoesNotReplacePendingPush() throws Exception {
+        MergeRequestEvent push = mergeRequestEvent("update", "0123456789abcdef", false);
+        MergeRequestEvent labelEdit = mergeRequestEvent("update", null, false);
+        MergeRequestEvent approval = mergeRequestEvent("approval", null, false);
+        String pushKey = GitLabWebHookListener.mergeRequestHead(push);
+        assertThat(GitLabWebHookListener.mergeRequestHead(labelEdit), is(not(pushKey)));
+        assertThat(GitLabWebHookListener.mergeRequestHead(approval), is(not(pushKey)));
+
+        long coalesced = GitLabEventCoalescer.getCoalescedCount();
+        long fired = GitLabEventCoalescer.getFiredCount();
+        fireLater(push);
+        fireLater(labelEdit);
+        fireLater(approval);
+        assertThat(GitLabEventCoalescer.getCoalescedCount(), is(coalesced));
+        awaitFired(fired + 3);
+    }
+
+    @Test
+    public void samePushesAreCoalesced() throws Exception {
+        MergeRequestEvent first = mergeRequestEvent("update", "0123456789abcdef", false);
+        MergeRequestEvent second = mergeRequestEvent("update", "fedcba9876543210", false);
+        assertThat(
+                GitLabWebHookListener.mergeRequestHead(second), is(GitLabWebHookListener.mergeRequestHead(first)));
+
+        long coalesced = GitLabEventCoalescer.getCoalescedCount();
+        long fired = GitLabEventCoalescer.getFiredCount();
+        fireLater(first);
+        fireLater(second);
+        assertThat(GitLabEventCoalescer.getCoalescedCount(), is(coalesced + 1));
+        awaitFired(fired + 1);
+    }
+
+    @Test
+    public void draftUpdateDoesNotReplacePendingPush() {
+        MergeRequestEvent push = mergeRequestEvent("update", "0123456789abcdef", false);
+        MergeRequestEvent draftPush = mergeRequestEvent("update", "fedcba9876543210", true);
+        assertThat(
+                GitLabWebHookListener.mergeRequestHead(draftPush),
+                is(not(GitLabWebHookListener.mergeRequestHead(push))));
+    }
+
+    private static MergeRequestEvent mergeRequestEvent(String action, String oldrev, boolean workInProgress) {
+        EventProject project = new EventProject();
+        project.setId(42L);
+        project.setWebUrl("https://gitlab.example.com/group/project");
+        MergeRequestEvent.ObjectAttributes attributes = new MergeRequestEvent.ObjectAttributes();
+        attributes.setIid(7L);
+        attributes.setAction(action);
+        attributes.setState("opened");
+        attributes.setOldrev(oldrev);
+        attributes.setWorkInProgress(workInProgress);
+        MergeRequestEvent event = new MergeRequestEvent();
+        event.setProject(project);
+        event.setObjectAttributes(attributes);
+        return event;
+    }
+
+    private static void fireLater(MergeRequestEvent event) {
+        GitLabEventCoalescer.fireLater(
+                "server/" + GitLabWebHookListener.mergeRequestHead(event),
+                new GitLabMergeRequestSCMEvent(event, "test"),
+                1,
+                TimeUnit.SECONDS);
+    }
+
+    private static void awaitFired(long expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(30);
+        while (GitLabEventCoalescer.getFiredCount() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+        }
+        assertThat(GitLabEventCoalescer.getFiredCount(), is(expected));
+    }
+}
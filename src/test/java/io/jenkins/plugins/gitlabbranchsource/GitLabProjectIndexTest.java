@@ -0,0 +1,112 @@
+package io.jenkins.plugins.gitlabbranchsource;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+import hudson.model.Items;
+import java.util.List;
+import java.util.stream.Collectors;
+import jenkins.branch.BranchSource;
+import jenkins.scm.api.SCMSourceOwner;
+import org.jenkinsci.plugins.workflow.multibranch.WorkflowMultiBranchProject;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.MockFolder;
+
+public class GitLabProjectIndexTest {
+
+    private static final String SERVER = "index-server";
+
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    @Before
+    public void setUp() {
+        GitLabProjectIndex.reset();
+    }
+
+    @Test
+    public void ownersAreFoundByProjectId() throws Exception {
+        createProject("first", 1L);
+        createProject("second", 2L);
+        createProject("third", 1L);
+
+        assertThat(getOwners(SERVER, 1L), containsInAnyOrder("first", "third"));
+        assertThat(getOwners(SERVER, 2L), contains("second"));
+        assertThat(getOwners(null, 2L), contains("second"));
+    }
+
+    @Test
+    public void unknownProjectIsAMiss() throws Exception {
+        createProject("first", 1L);
+
+        assertThat(getOwners(SERVER, 3L), is(empty()));
+        assertThat(getOwners(SERVER, null), is(empty()));
+        // the project ids of different servers may collide
+        assertThat(getOwners("other-server", 1L), is(empty()));
+    }
+
+    @Test
+    public void movedOwnerIsFoundUnderItsNewName() throws Exception {
+        WorkflowMultiBranchProject project = createProject("first", 1L);
+        assertThat(getOwners(SERVER, 1L), contains("first"));
+
+        MockFolder folder = j.createFolder("folder");
+        Items.move(project, folder);
+
+        assertThat(getOwners(SERVER, 1L), contains("folder/first"));
+    }
+
+    @Test
+    public void deletedOwnersAreForgotten() throws Exception {
+        WorkflowMultiBranchProject project = createProject("first", 1L);
+        MockFolder folder = j.createFolder("folder");
+        WorkflowMultiBranchProject nested = folder.createProject(WorkflowMultiBranchProject.class, "nested");
+        addSource(nested, 1L);
+        assertThat(getOwners(SERVER, 1L), containsInAnyOrder("first", "folder/nested"));
+
+        project.delete();
+        assertThat(getOwners(SERVER, 1L), contains("folder/nested"));
+
+        folder.delete();
+        assertThat(getOwners(SERVER, 1L), is(empty()));
+    }
+
+    @Test
+    public void changedSourceIsReindexed() throws Exception {
+        WorkflowMultiBranchProject project = createProject("first", 1L);
+        assertThat(getOwners(SERVER, 1L), contains("first"));
+
+        project.getSourcesList().clear();
+        addSource(project, 2L);
+
+        assertThat(getOwners(SERVER, 1L), is(empty()));
+        assertThat(getOwners(SERVER, 2L), contains("first"));
+    }
+
+    private WorkflowMultiBranchProject createProject(String name, Long projectId) throws Exception {
+        WorkflowMultiBranchProject project = j.createProject(WorkflowMultiBranchProject.class, name);
+        addSource(project, projectId);
+        return project;
+    }
+
+    private static void addSource(WorkflowMultiBranchProject project, Long projectId) {
+        GitLabSCMSource source = new GitLabSCMSourceBuilder(
+                        "id-" + projectId, SERVER, "creds", "group", "group/project" + projectId, "project")
+                .build();
+        source.setProjectId(projectId);
+        // saves the project
+        project.getSourcesList().add(new BranchSource(source));
+    }
+
+    private static List<String> getOwners(String serverName, Long projectId) {
+        return GitLabProjectIndex.getOwners(serverName, projectId).stream()
+                .map(SCMSourceOwner::getFullName)
+                .collect(Collectors.toList());
+    }
+}
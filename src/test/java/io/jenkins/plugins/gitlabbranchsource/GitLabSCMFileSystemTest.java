@@ -0,0 +1,98 @@
+package io.jenkins.plugins.gitlabbranchsource;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.notNullValue;
+
+import java.util.Date;
+import jenkins.scm.api.SCMFileSystem;
+import jenkins.scm.api.SCMHeadOrigin;
+import jenkins.scm.api.mixin.ChangeRequestCheckoutStrategy;
+import org.gitlab4j.api.CommitsApi;
+import org.gitlab4j.api.GitLabApi;
+import org.gitlab4j.api.models.Commit;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class GitLabSCMFileSystemTest {
+
+    private static final String PROJECT_PATH = "group/project";
+    private static final String TARGET_SHA = "1111111111111111111111111111111111111111";
+    private static final String ORIGIN_SHA = "2222222222222222222222222222222222222222";
+
+    private GitLabApi gitLabApi;
+
+    private CommitsApi commitsApi;
+
+    @Before
+    public void setUp() throws Exception {
+        gitLabApi = Mockito.mock(GitLabApi.class);
+        commitsApi = Mockito.mock(CommitsApi.class);
+        Commit commit = new Commit();
+        commit.setCommittedDate(new Date());
+        Mockito.when(gitLabApi.getCommitsApi()).thenReturn(commitsApi);
+        Mockito.when(commitsApi.getCommit(Mockito.anyString(), Mockito.anyString())).thenReturn(commit);
+    }
+
+    @Test
+    public void trustedBranchIsReadAtItsCommit() throws Exception {
+        BranchSCMHead head = new BranchSCMHead("main");
+        SCMFileSystem fs = new GitLabSCMFileSystem.BuilderImpl()
+                .build(head, new BranchSCMRevision(head, TARGET_SHA), gitLabApi, PROJECT_PATH);
+
+        assertRef(fs, TARGET_SHA);
+    }
+
+    @Test
+    public void untrustedForkMergeRequestIsReadAtTargetCommit() throws Exception {
+        MergeRequestSCMHead head = forkMergeRequest(ChangeRequestCheckoutStrategy.HEAD);
+        MergeRequestSCMRevision revision = revision(head);
+        // as probed by GitLabSCMSource for a merge request from a fork owned by a non-member
+        SCMFileSystem fs =
+                new GitLabSCMFileSystem.BuilderImpl().build(head.getTarget(), revision, gitLabApi, PROJECT_PATH);
+
+        assertRef(fs, TARGET_SHA);
+    }
+
+    @Test
+    public void trustedMergeRequestIsReadAtOriginCommit() throws Exception {
+        MergeRequestSCMHead head = forkMergeRequest(ChangeRequestCheckoutStrategy.HEAD);
+        SCMFileSystem fs = new GitLabSCMFileSystem.BuilderImpl().build(head, revision(head), gitLabApi, PROJECT_PATH);
+
+        assertRef(fs, ORIGIN_SHA);
+    }
+
+    @Test
+    public void mergeStrategyMergeRequestIsReadAtMergeRef() throws Exception {
+        MergeRequestSCMHead head = forkMergeRequest(ChangeRequestCheckoutStrategy.MERGE);
+        SCMFileSystem fs = new GitLabSCMFileSystem.BuilderImpl().build(head, revision(head), gitLabApi, PROJECT_PATH);
+
+        assertRef(fs, "merge-requests/1/merge");
+    }
+
+    private static MergeRequestSCMHead forkMergeRequest(ChangeRequestCheckoutStrategy strategy) {
+        return new MergeRequestSCMHead(
+                "MR-1",
+                1,
+                new BranchSCMHead("main"),
+                strategy,
+                new SCMHeadOrigin.Fork("stranger/project"),
+                "stranger",
+                "stranger/project",
+                "feature",
+                "Title");
+    }
+
+    private static MergeRequestSCMRevision revision(MergeRequestSCMHead head) {
+        return new MergeRequestSCMRevision(
+                head,
+                new BranchSCMRevision(head.getTarget(), TARGET_SHA),
+                new BranchSCMRevision(new BranchSCMHead(head.getOriginName()), ORIGIN_SHA));
+    }
+
+    private void assertRef(SCMFileSystem fs, String ref) throws Exception {
+        assertThat(fs, notNullValue());
+        fs.lastModified();
+        Mockito.verify(commitsApi).getCommit(PROJECT_PATH, ref);
+    }
+}
@@ -0,0 +1,171 @@
+package io.jenkins.plugins.gitlabbranchsource;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.gitlab4j.api.models.Project;
+import org.junit.Test;
+
+public class GitLabSCMNavigatorTest {
+
+    @Test
+    public void projectsArePreparedConcurrentlyAndProposedOneAtATime() throws Exception {
+        List<Project> projects = newProjects(20);
+        CountDownLatch preparing = new CountDownLatch(4);
+        AtomicInteger proposing = new AtomicInteger();
+        AtomicInteger maxProposing = new AtomicInteger();
+        List<String> proposed = new CopyOnWriteArrayList<>();
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        AtomicInteger count = new AtomicInteger();
+
+        boolean complete = GitLabSCMNavigator.visitProjectsInParallel(
+                new GitLabSCMNavigator.ProjectCheck() {
+                    @Override
+                    public String prepare(Project p, PrintStream logger) {
+                        logger.format("Checking %s%n", p.getPathWithNamespace());
+                        preparing.countDown();
+                        try {
+                            // only returns once as many projects as the concurrency are prepared at the same time
+                            assertThat(preparing.await(30, TimeUnit.SECONDS), is(true));
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return p.getName();
+                    }
+
+                    @Override
+                    public boolean propose(Project p, String projectName) {
+                        maxProposing.accumulateAndGet(proposing.incrementAndGet(), Math::max);
+                        proposed.add(projectName);
+                        proposing.decrementAndGet();
+                        return false;
+                    }
+                },
+                new PrintStream(log, true, UTF_8),
+                projects,
+                4,
+                count);
+
+        assertThat(complete, is(false));
+        assertThat(count.get(), is(20));
+        assertThat(maxProposing.get(), is(1));
+        assertThat(proposed, containsInAnyOrder(projects.stream().map(Project::getName).toArray()));
+        for (Project p : projects) {
+            assertThat(log.toString(UTF_8), containsString("Checking " + p.getPathWithNamespace() + "\n"));
+        }
+    }
+
+    @Test
+    public void completedRequestStopsTheChecks() throws Exception {
+        List<Project> projects = newProjects(50);
+        AtomicInteger proposed = new AtomicInteger();
+        AtomicInteger count = new AtomicInteger();
+
+        boolean complete = GitLabSCMNavigator.visitProjectsInParallel(
+                new GitLabSCMNavigator.ProjectCheck() {
+                    @Override
+                    public String prepare(Project p, PrintStream logger) {
+                        return p.getName();
+                    }
+
+                    @Override
+                    public boolean propose(Project p, String projectName) {
+                        return proposed.incrementAndGet() == 3;
+                    }
+                },
+                new PrintStream(new ByteArrayOutputStream(), true, UTF_8),
+                projects,
+                4,
+                count);
+
+        assertThat(complete, is(true));
+        assertThat(proposed.get(), is(3));
+        assertThat(count.get(), is(3));
+    }
+
+    @Test
+    public void failedProposalIsRethrown() {
+        IOException failure = new IOException("Failed to propose");
+        AtomicInteger prepared = new AtomicInteger();
+
+        IOException e = assertThrows(
+                IOException.class,
+                () -> GitLabSCMNavigator.visitProjectsInParallel(
+                        new GitLabSCMNavigator.ProjectCheck() {
+                            @Override
+                            public String prepare(Project p, PrintStream logger) throws URISyntaxException {
+                                prepared.incrementAndGet();
+                                return p.getName();
+                            }
+
+                            @Override
+                            public boolean propose(Project p, String projectName) throws IOException {
+                                throw failure;
+                            }
+                        },
+                        new PrintStream(new ByteArrayOutputStream(), true, UTF_8),
+                        newProjects(100),
+                        2,
+                        new AtomicInteger()));
+
+        assertThat(e, sameInstance(failure));
+        // the other thread stops once its current project is checked
+        assertThat(prepared.get(), lessThan(100));
+    }
+
+    @Test
+    public void failedPreparationIsWrapped() {
+        IOException e = assertThrows(
+                IOException.class,
+                () -> GitLabSCMNavigator.visitProjectsInParallel(
+                        new GitLabSCMNavigator.ProjectCheck() {
+                            @Override
+                            public String prepare(Project p, PrintStream logger) throws URISyntaxException {
+                                if (p.getName().equals("project1")) {
+                                    throw new URISyntaxException("not a url", "Illegal character");
+                                }
+                                return p.getName();
+                            }
+
+                            @Override
+                            public boolean propose(Project p, String projectName) {
+                                return false;
+                            }
+                        },
+                        new PrintStream(new ByteArrayOutputStream(), true, UTF_8),
+                        newProjects(10),
+                        3,
+                        new AtomicInteger()));
+
+        assertThat(e.getMessage(), is("Failed to check project"));
+        assertThat(e.getCause(), instanceOf(URISyntaxException.class));
+    }
+
+    private static List<Project> newProjects(int size) {
+        List<Project> projects = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Project project = new Project();
+            project.setName("project" + i);
+            project.setPathWithNamespace("group/project" + i);
+            projects.add(project);
+        }
+        return projects;
+    }
+}
@@ -1,13 +1,19 @@
 package io.jenkins.plugins.gitlabbranchsource;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 
+import com.damnhandy.uri.template.UriTemplate;
+import edu.umd.cs.findbugs.annotations.NonNull;
 import hudson.model.TaskListener;
 import hudson.security.AccessControlled;
 import hudson.util.StreamTaskListener;
 import io.jenkins.plugins.gitlabbranchsource.helpers.GitLabHelper;
+import io.jenkins.plugins.gitlabbranchsource.helpers.GitLabMembersCache;
 import io.jenkins.plugins.gitlabbranchsource.helpers.Sleeper;
 import io.jenkins.plugins.gitlabserverconfig.servers.GitLabServer;
 import io.jenkins.plugins.gitlabserverconfig.servers.GitLabServers;
@@ -15,20 +21,30 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 import jenkins.branch.BranchSource;
 import jenkins.scm.api.SCMHead;
+import jenkins.scm.api.SCMHeadObserver;
+import jenkins.scm.api.SCMRevision;
 import jenkins.scm.api.SCMSourceOwner;
+import org.gitlab4j.api.EventsApi;
 import org.gitlab4j.api.GitLabApi;
 import org.gitlab4j.api.GitLabApiException;
 import org.gitlab4j.api.MergeRequestApi;
+import org.gitlab4j.api.Pager;
 import org.gitlab4j.api.ProjectApi;
 import org.gitlab4j.api.RepositoryApi;
 import org.gitlab4j.api.models.AccessLevel;
+import org.gitlab4j.api.models.Author;
+import org.gitlab4j.api.models.Branch;
+import org.gitlab4j.api.models.Commit;
 import org.gitlab4j.api.models.Member;
+import org.gitlab4j.api.models.MergeRequest;
+import org.gitlab4j.api.models.MergeRequestFilter;
 import org.gitlab4j.api.models.Project;
 import org.jenkinsci.plugins.workflow.multibranch.WorkflowMultiBranchProject;
 import org.junit.After;
@@ -57,6 +73,7 @@ public class GitLabSCMSourceTest {
     public void setUp() {
         utilities = Mockito.mockStatic(GitLabHelper.class);
         sleeperMockedConstruction = Mockito.mockConstruction(Sleeper.class);
+        GitLabMembersCache.invalidateAll();
     }
 
     @After
@@ -75,6 +92,7 @@ public class GitLabSCMSourceTest {
         Mockito.when(gitLabApi.getMergeRequestApi()).thenReturn(mrApi);
         Mockito.when(gitLabApi.getRepositoryApi()).thenReturn(repoApi);
         Mockito.when(projectApi.getProject(any())).thenReturn(new Project());
+        Mockito.when(repoApi.getBranches(any(), anyInt())).thenReturn(Mockito.mock(Pager.class));
         utilities
                 .when(() -> GitLabHelper.apiBuilder(any(AccessControlled.class), anyString(), anyString()))
                 .thenReturn(gitLabApi);
@@ -119,6 +137,8 @@ public class GitLabSCMSourceTest {
     public void testGetMembersWithAllRetries() throws GitLabApiException, InterruptedException {
         GitLabApi gitLabApi = Mockito.mock(GitLabApi.class);
         ProjectApi projectApi = Mockito.mock(ProjectApi.class);
+        // rate limited calls slow down the later calls to the server
+        Mockito.when(gitLabApi.getGitLabServerUrl()).thenReturn("https://members-all-retries.example.com");
         Mockito.when(gitLabApi.getProjectApi()).thenReturn(projectApi);
         SCMSourceOwner mockOwner = Mockito.mock(SCMSourceOwner.class);
         GitLabApiException rateLimitException = new GitLabApiException("Rate limit", 429);
@@ -133,19 +153,20 @@ public class GitLabSCMSourceTest {
         source.setOwner(mockOwner);
         assertEquals(Map.of(), source.getMembers());
         Sleeper sleeper = sleeperMockedConstruction.constructed().get(0);
-        Mockito.verify(sleeper, Mockito.times(1)).sleep(5000);
-        Mockito.verify(sleeper, Mockito.times(1)).sleep(10000);
-        Mockito.verify(sleeper, Mockito.times(1)).sleep(20000);
-        Mockito.verify(sleeper, Mockito.times(1)).sleep(40000);
-        Mockito.verify(sleeper, Mockito.times(1)).sleep(80000);
-        Mockito.verify(sleeper, Mockito.times(1)).sleep(160000);
+        Mockito.verify(sleeper, Mockito.times(1)).sleep(2000);
+        Mockito.verify(sleeper, Mockito.times(1)).sleep(4000);
+        Mockito.verify(sleeper, Mockito.times(1)).sleep(8000);
+        Mockito.verify(sleeper, Mockito.times(1)).sleep(16000);
         Mockito.verifyNoMoreInteractions(sleeper);
+        Mockito.verify(projectApi, Mockito.times(5)).getAllMembers("group/project");
     }
 
     @Test
     public void testGetMembersWithSomeRetries() throws GitLabApiException, InterruptedException {
         GitLabApi gitLabApi = Mockito.mock(GitLabApi.class);
         ProjectApi projectApi = Mockito.mock(ProjectApi.class);
+        // rate limited calls slow down the later calls to the server
+        Mockito.when(gitLabApi.getGitLabServerUrl()).thenReturn("https://members-some-retries.example.com");
         Mockito.when(gitLabApi.getProjectApi()).thenReturn(projectApi);
         GitLabApiException rateLimitException = new GitLabApiException("Rate limit", 429);
         Member mockMember = Mockito.mock(Member.class);
@@ -169,9 +190,188 @@ public class GitLabSCMSourceTest {
         source.setOwner(mockOwner);
         assertEquals(Map.of("example.user", AccessLevel.DEVELOPER), source.getMembers());
         Sleeper sleeper = sleeperMockedConstruction.constructed().get(0);
-        Mockito.verify(sleeper, Mockito.times(1)).sleep(5000);
-        Mockito.verify(sleeper, Mockito.times(1)).sleep(10000);
-        Mockito.verify(sleeper, Mockito.times(1)).sleep(20000);
+        Mockito.verify(sleeper, Mockito.times(1)).sleep(2000);
+        Mockito.verify(sleeper, Mockito.times(1)).sleep(4000);
+        Mockito.verify(sleeper, Mockito.times(1)).sleep(8000);
         Mockito.verifyNoMoreInteractions(sleeper);
     }
+
+    @Test
+    public void testGetMembersIsCached() throws GitLabApiException {
+        GitLabApi gitLabApi = Mockito.mock(GitLabApi.class);
+        ProjectApi projectApi = Mockito.mock(ProjectApi.class);
+        Mockito.when(gitLabApi.getProjectApi()).thenReturn(projectApi);
+        Member mockMember = Mockito.mock(Member.class);
+        Mockito.when(mockMember.getUsername()).thenReturn("example.user");
+        Mockito.when(mockMember.getAccessLevel()).thenReturn(AccessLevel.DEVELOPER);
+        SCMSourceOwner mockOwner = Mockito.mock(SCMSourceOwner.class);
+        Mockito.when(projectApi.getAllMembers("group/project")).thenReturn(List.of(mockMember));
+        utilities
+                .when(() -> GitLabHelper.apiBuilder(any(AccessControlled.class), anyString(), anyString()))
+                .thenReturn(gitLabApi);
+        GitLabServers.get().addServer(new GitLabServer("", SERVER, ""));
+        GitLabSCMSourceBuilder sb =
+                new GitLabSCMSourceBuilder(SOURCE_ID, SERVER, "creds", "po", "group/project", "project");
+        GitLabSCMSource source = sb.build();
+        source.setOwner(mockOwner);
+        assertEquals(Map.of("example.user", AccessLevel.DEVELOPER), source.getMembers());
+        assertEquals(Map.of("example.user", AccessLevel.DEVELOPER), source.getMembers());
+        Mockito.verify(projectApi, Mockito.times(1)).getAllMembers("group/project");
+        GitLabMembersCache.invalidate(null, "group/project");
+        assertEquals(Map.of("example.user", AccessLevel.DEVELOPER), source.getMembers());
+        Mockito.verify(projectApi, Mockito.times(2)).getAllMembers("group/project");
+    }
+
+    @Test
+    public void pushScopedRetrieveExcludesMergeRequestBranches() throws Exception {
+        assertEquals(Set.of("main"), retrieveBranches(1, "main", "feature"));
+    }
+
+    @Test
+    public void pushScopedRetrieveOnlyKeepsMergeRequestBranches() throws Exception {
+        assertEquals(Set.of("feature"), retrieveBranches(2, "main", "feature"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void failureToFetchALaterPageFailsTheRetrieve() throws Exception {
+        GitLabApi gitLabApi = Mockito.mock(GitLabApi.class);
+        ProjectApi projectApi = Mockito.mock(ProjectApi.class);
+        RepositoryApi repoApi = Mockito.mock(RepositoryApi.class);
+        EventsApi eventsApi = Mockito.mock(EventsApi.class);
+        Mockito.when(gitLabApi.getGitLabServerUrl()).thenReturn("https://paged.example.com");
+        Mockito.when(gitLabApi.getProjectApi()).thenReturn(projectApi);
+        Mockito.when(gitLabApi.getRepositoryApi()).thenReturn(repoApi);
+        Mockito.when(gitLabApi.getEventsApi()).thenReturn(eventsApi);
+        Project project = new Project();
+        project.setId(2L);
+        project.setWebUrl("https://paged.example.com/group/project");
+        Mockito.when(projectApi.getProject(any())).thenReturn(project);
+        Mockito.when(eventsApi.getProjectEvents(any(), any(), any(), any(), any(), any(), anyInt(), anyInt()))
+                .thenReturn(List.of());
+        Commit commit = new Commit();
+        commit.setId("main-sha");
+        Branch branch = new Branch();
+        branch.setName("main");
+        branch.setCommit(commit);
+        Pager<Branch> pager = Mockito.mock(Pager.class);
+        Mockito.when(pager.hasNext()).thenReturn(true);
+        Mockito.when(pager.next())
+                .thenReturn(List.of(branch))
+                .thenThrow(new RuntimeException(new GitLabApiException("Internal Server Error", 500)));
+        Mockito.when(repoApi.getBranches(any(), anyInt())).thenReturn(pager);
+        utilities
+                .when(() -> GitLabHelper.apiBuilder(any(AccessControlled.class), anyString(), anyString()))
+                .thenReturn(gitLabApi);
+        utilities
+                .when(() -> GitLabHelper.branchUriTemplate(any()))
+                .thenReturn(UriTemplate.fromTemplate(project.getWebUrl() + "/-/tree/{branch*}"));
+        utilities
+                .when(() -> GitLabHelper.splitPath(anyString()))
+                .thenAnswer(invocation -> new String[] {invocation.getArgument(0)});
+        GitLabServers.get().addServer(new GitLabServer("", SERVER, ""));
+        GitLabSCMSourceBuilder sb =
+                new GitLabSCMSourceBuilder(SOURCE_ID, SERVER, "creds", "po", "group/project", "project");
+        WorkflowMultiBranchProject owner = j.createProject(WorkflowMultiBranchProject.class, PROJECT_NAME + "-paged");
+        BranchSource source = new BranchSource(sb.build());
+        source.getSource().setTraits(Arrays.asList(new BranchDiscoveryTrait(3)));
+        owner.getSourcesList().add(source);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TaskListener listener = new StreamTaskListener(out, StandardCharsets.UTF_8);
+
+        IOException e = assertThrows(IOException.class, () -> source.getSource().fetch(listener));
+        assertEquals(500, ((GitLabApiException) e.getCause().getCause()).getHttpStatus());
+    }
+
+    /**
+     * Retrieves the given branches as a push event would, with a merge request filed from {@code feature}.
+     */
+    private Set<String> retrieveBranches(int branchStrategyId, String... branchNames) throws Exception {
+        GitLabApi gitLabApi = Mockito.mock(GitLabApi.class);
+        ProjectApi projectApi = Mockito.mock(ProjectApi.class);
+        RepositoryApi repoApi = Mockito.mock(RepositoryApi.class);
+        MergeRequestApi mrApi = Mockito.mock(MergeRequestApi.class);
+        Mockito.when(gitLabApi.getProjectApi()).thenReturn(projectApi);
+        Mockito.when(gitLabApi.getMergeRequestApi()).thenReturn(mrApi);
+        Mockito.when(gitLabApi.getRepositoryApi()).thenReturn(repoApi);
+        Project project = new Project();
+        project.setId(1L);
+        project.setWebUrl("https://gitlab.example.com/group/project");
+        Mockito.when(projectApi.getProject(any())).thenReturn(project);
+        for (String branchName : branchNames) {
+            Commit commit = new Commit();
+            commit.setId(branchName + "-sha");
+            Branch branch = new Branch();
+            branch.setName(branchName);
+            branch.setCommit(commit);
+            Mockito.when(repoApi.getBranch(any(), eq(branchName))).thenReturn(branch);
+        }
+        Author author = new Author();
+        author.setUsername("example.user");
+        MergeRequest mr = new MergeRequest();
+        mr.setIid(1L);
+        mr.setSourceProjectId(1L);
+        mr.setTargetProjectId(1L);
+        mr.setSourceBranch("feature");
+        mr.setTargetBranch("main");
+        mr.setState("opened");
+        mr.setSha("feature-sha");
+        mr.setAuthor(author);
+        Mockito.when(mrApi.getMergeRequests(any(MergeRequestFilter.class))).thenAnswer(invocation -> {
+            MergeRequestFilter filter = invocation.getArgument(0);
+            return "feature".equals(filter.getSourceBranch()) ? List.of(mr) : List.of();
+        });
+        utilities
+                .when(() -> GitLabHelper.apiBuilder(any(AccessControlled.class), anyString(), anyString()))
+                .thenReturn(gitLabApi);
+        utilities
+                .when(() -> GitLabHelper.branchUriTemplate(any()))
+                .thenReturn(UriTemplate.fromTemplate(project.getWebUrl() + "/-/tree/{branch*}"));
+        utilities
+                .when(() -> GitLabHelper.mergeRequestUriTemplate(any()))
+                .thenReturn(UriTemplate.fromTemplate(project.getWebUrl() + "/-/merge_requests/{iid}"));
+        utilities
+                .when(() -> GitLabHelper.splitPath(anyString()))
+                .thenAnswer(invocation -> new String[] {invocation.getArgument(0)});
+        GitLabServers.get().addServer(new GitLabServer("", SERVER, ""));
+        GitLabSCMSourceBuilder sb =
+                new GitLabSCMSourceBuilder(SOURCE_ID, SERVER, "creds", "po", "group/project", "project");
+        WorkflowMultiBranchProject owner =
+                j.createProject(WorkflowMultiBranchProject.class, PROJECT_NAME + branchStrategyId);
+        BranchSource source = new BranchSource(sb.build());
+        source.getSource().setTraits(Arrays.asList(new BranchDiscoveryTrait(branchStrategyId)));
+        owner.getSourcesList().add(source);
+        Set<SCMHead> includes = new HashSet<>();
+        for (String branchName : branchNames) {
+            includes.add(new BranchSCMHead(branchName));
+        }
+        IncludesObserver observer = new IncludesObserver(includes);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        source.getSource().fetch(null, observer, new StreamTaskListener(out, StandardCharsets.UTF_8));
+        return observer.observed;
+    }
+
+    /**
+     * Observes the branches of a retrieve scoped to some heads, as event driven retrieves are.
+     */
+    private static class IncludesObserver extends SCMHeadObserver {
+        private final Set<SCMHead> includes;
+        private final Set<String> observed = new HashSet<>();
+
+        IncludesObserver(Set<SCMHead> includes) {
+            this.includes = includes;
+        }
+
+        @Override
+        public void observe(@NonNull SCMHead head, @NonNull SCMRevision revision) {
+            if (head instanceof BranchSCMHead) {
+                observed.add(head.getName());
+            }
+        }
+
+        @Override
+        public Set<SCMHead> getIncludes() {
+            return includes;
+        }
+    }
 }
@@ -0,0 +1,149 @@
+package io.jenkins.plugins.gitlabbranchsource.helpers;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThrows;
+
+import io.jenkins.plugins.gitlabserverconfig.servers.GitLabServer;
+import jakarta.ws.rs.ProcessingException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.TimeUnit;
+import org.gitlab4j.api.GitLabApiException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestName;
+
+public class GitLabCircuitBreakerTest {
+
+    @Rule
+    public TestName name = new TestName();
+
+    private long openMillis;
+
+    @Before
+    public void setUp() {
+        openMillis = GitLabCircuitBreaker.OPEN_MILLIS;
+    }
+
+    @After
+    public void tearDown() {
+        GitLabCircuitBreaker.OPEN_MILLIS = openMillis;
+    }
+
+    @Test
+    public void opensAfterConsecutiveOutages() throws GitLabApiException {
+        GitLabCircuitBreaker breaker = newBreaker();
+        for (int i = 0; i < 4; i++) {
+            breaker.record(10, new ProcessingException(new SocketTimeoutException("Read timed out")));
+        }
+        assertThat(breaker.isOpen(), is(false));
+        breaker.acquire();
+        breaker.record(10, new GitLabApiException("Bad Gateway", 502));
+        assertThat(breaker.isOpen(), is(true));
+
+        GitLabApiException e = assertThrows(GitLabApiException.class, breaker::acquire);
+        assertThat(e.getHttpStatus(), is(503));
+        assertThat(breaker.getRejectedCount(), is(1L));
+    }
+
+    @Test
+    public void rejectedRequestsAndBugsAreNotOutages() {
+        GitLabCircuitBreaker breaker = newBreaker();
+        for (int i = 0; i < 10; i++) {
+            breaker.record(10, new GitLabApiException("Not Found", 404));
+            breaker.record(10, new GitLabApiException("Too Many Requests", 429));
+            breaker.record(10, new IllegalStateException("bug"));
+            breaker.record(10, new RuntimeException(new GitLabApiException("Forbidden", 403)));
+        }
+        assertThat(breaker.isOpen(), is(false));
+    }
+
+    @Test
+    public void wrappedOutagesCount() {
+        assertThat(
+                GitLabCircuitBreaker.isOutage(new RuntimeException(new GitLabApiException("Unavailable", 503))),
+                is(true));
+        assertThat(
+                GitLabCircuitBreaker.isOutage(new GitLabApiException(new ProcessingException("Connection refused"))),
+                is(true));
+        assertThat(GitLabCircuitBreaker.isOutage(new GitLabApiException("Not Implemented", 501)), is(false));
+        assertThat(GitLabCircuitBreaker.isOutage(null), is(false));
+    }
+
+    @Test
+    public void successResetsTheFailures() {
+        GitLabCircuitBreaker breaker = newBreaker();
+        for (int i = 0; i < 4; i++) {
+            breaker.record(10, new GitLabApiException("Internal Server Error", 500));
+        }
+        breaker.record(10, null);
+        for (int i = 0; i < 4; i++) {
+            breaker.record(10, new GitLabApiException("Internal Server Error", 500));
+        }
+        assertThat(breaker.isOpen(), is(false));
+    }
+
+    @Test
+    public void onlyCallsSlowerThanTheReadTimeoutCount() {
+        GitLabCircuitBreaker breaker = newBreaker();
+        long readTimeoutMillis = TimeUnit.SECONDS.toMillis(GitLabServer.DEFAULT_READ_TIMEOUT);
+        for (int i = 0; i < 10; i++) {
+            breaker.record(readTimeoutMillis, null);
+        }
+        assertThat(breaker.isOpen(), is(false));
+        for (int i = 0; i < 5; i++) {
+            breaker.record(readTimeoutMillis + 1, null);
+        }
+        assertThat(breaker.isOpen(), is(true));
+    }
+
+    @Test
+    public void onlyOutagesOfListingsCount() {
+        GitLabCircuitBreaker breaker = newBreaker();
+        for (int i = 0; i < 10; i++) {
+            // however long the listing took
+            breaker.recordListing(null);
+        }
+        assertThat(breaker.isOpen(), is(false));
+        for (int i = 0; i < 5; i++) {
+            breaker.recordListing(new ProcessingException(new SocketTimeoutException("Read timed out")));
+        }
+        assertThat(breaker.isOpen(), is(true));
+    }
+
+    @Test
+    public void probeClosesOrReopensTheBreaker() throws Exception {
+        GitLabCircuitBreaker.OPEN_MILLIS = 100;
+        GitLabCircuitBreaker breaker = newBreaker();
+        open(breaker);
+        Thread.sleep(150);
+        assertThat(breaker.isOpen(), is(false));
+
+        // a single probe is let through
+        breaker.acquire();
+        assertThrows(GitLabApiException.class, breaker::acquire);
+        breaker.record(10, new GitLabApiException("Service Unavailable", 503));
+        assertThat(breaker.isOpen(), is(true));
+
+        Thread.sleep(150);
+        breaker.acquire();
+        breaker.record(10, null);
+        assertThat(breaker.isOpen(), is(false));
+        breaker.acquire();
+        breaker.acquire();
+    }
+
+    private static void open(GitLabCircuitBreaker breaker) {
+        for (int i = 0; i < 5; i++) {
+            breaker.record(10, new GitLabApiException("Service Unavailable", 503));
+        }
+        assertThat(breaker.isOpen(), is(true));
+    }
+
+    private GitLabCircuitBreaker newBreaker() {
+        // breakers are shared by server, each test uses its own
+        return GitLabCircuitBreaker.get("https://" + name.getMethodName() + ".example.com");
+    }
+}
@@ -0,0 +1,176 @@
+package io.jenkins.plugins.gitlabbranchsource.helpers;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongSupplier;
+import org.gitlab4j.api.GitLabApiException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestName;
+import org.jvnet.hudson.test.JenkinsRule;
+
+public class GitLabCommitStatusPublisherTest {
+
+    @ClassRule
+    public static JenkinsRule j = new JenkinsRule();
+
+    @Rule
+    public TestName name = new TestName();
+
+    private int maxAttempts;
+
+    private long retryDelayMillis;
+
+    @Before
+    public void setUp() {
+        maxAttempts = GitLabCommitStatusPublisher.MAX_ATTEMPTS;
+        retryDelayMillis = GitLabCommitStatusPublisher.RETRY_DELAY_MILLIS;
+        GitLabCommitStatusPublisher.RETRY_DELAY_MILLIS = 1;
+    }
+
+    @After
+    public void tearDown() {
+        GitLabCommitStatusPublisher.MAX_ATTEMPTS = maxAttempts;
+        GitLabCommitStatusPublisher.RETRY_DELAY_MILLIS = retryDelayMillis;
+    }
+
+    @Test
+    public void statusesWaitingForTheSameKeyAreCoalesced() throws Exception {
+        String key = name.getMethodName();
+        long coalesced = GitLabCommitStatusPublisher.getCoalescedCount();
+        long published = GitLabCommitStatusPublisher.getPublishedCount();
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> sent = new CopyOnWriteArrayList<>();
+        GitLabCommitStatusPublisher.publish(key, () -> {
+            sending.countDown();
+            await(release);
+            sent.add("pending");
+        });
+        await(sending);
+
+        GitLabCommitStatusPublisher.publish(key, () -> sent.add("running"));
+        GitLabCommitStatusPublisher.publish(key, () -> sent.add("failed"));
+        GitLabCommitStatusPublisher.publish(key, () -> sent.add("success"));
+        // another key is not held back by the first one
+        CountDownLatch otherSent = new CountDownLatch(1);
+        GitLabCommitStatusPublisher.publish(key + "-other", otherSent::countDown);
+        await(otherSent);
+        release.countDown();
+
+        awaitCount(GitLabCommitStatusPublisher::getPublishedCount, published + 3);
+        assertThat(sent, contains("pending", "success"));
+        assertThat(GitLabCommitStatusPublisher.getCoalescedCount(), is(coalesced + 2));
+    }
+
+    @Test
+    public void statusesOfAKeyAreSentOneAtATimeInOrder() throws Exception {
+        String key = name.getMethodName();
+        long published = GitLabCommitStatusPublisher.getPublishedCount();
+        AtomicInteger sending = new AtomicInteger();
+        AtomicInteger maxSending = new AtomicInteger();
+        List<Integer> sent = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            int status = i;
+            GitLabCommitStatusPublisher.publish(key, () -> {
+                maxSending.accumulateAndGet(sending.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                sent.add(status);
+                sending.decrementAndGet();
+            });
+        }
+
+        await(() -> sent.contains(19));
+        assertThat(maxSending.get(), is(1));
+        for (int i = 1; i < sent.size(); i++) {
+            assertThat(sent.get(i) > sent.get(i - 1), is(true));
+        }
+        assertThat(sent.get(sent.size() - 1), is(19));
+        awaitCount(GitLabCommitStatusPublisher::getPublishedCount, published + sent.size());
+    }
+
+    @Test
+    public void rateLimitedAndServerErrorsAreRetried() throws Exception {
+        long published = GitLabCommitStatusPublisher.getPublishedCount();
+        long retried = GitLabCommitStatusPublisher.getRetryCount();
+        AtomicInteger attempts = new AtomicInteger();
+        GitLabCommitStatusPublisher.publish(name.getMethodName(), () -> {
+            switch (attempts.incrementAndGet()) {
+                case 1:
+                    throw new GitLabApiException("Too Many Requests", 429);
+                case 2:
+                    throw new GitLabApiException("Bad Gateway", 502);
+                default:
+                    break;
+            }
+        });
+
+        awaitCount(GitLabCommitStatusPublisher::getPublishedCount, published + 1);
+        assertThat(attempts.get(), is(3));
+        assertThat(GitLabCommitStatusPublisher.getRetryCount(), is(retried + 2));
+    }
+
+    @Test
+    public void retriesStopAfterTheLastAttempt() throws Exception {
+        GitLabCommitStatusPublisher.MAX_ATTEMPTS = 3;
+        long failed = GitLabCommitStatusPublisher.getFailedCount();
+        AtomicInteger attempts = new AtomicInteger();
+        GitLabCommitStatusPublisher.publish(name.getMethodName(), () -> {
+            attempts.incrementAndGet();
+            throw new GitLabApiException("Service Unavailable", 503);
+        });
+
+        awaitCount(GitLabCommitStatusPublisher::getFailedCount, failed + 1);
+        assertThat(attempts.get(), is(3));
+    }
+
+    @Test
+    public void rejectedStatusesAreNotRetried() throws Exception {
+        long failed = GitLabCommitStatusPublisher.getFailedCount();
+        long retried = GitLabCommitStatusPublisher.getRetryCount();
+        AtomicInteger attempts = new AtomicInteger();
+        GitLabCommitStatusPublisher.publish(name.getMethodName(), () -> {
+            attempts.incrementAndGet();
+            throw new GitLabApiException("Not Found", 404);
+        });
+
+        awaitCount(GitLabCommitStatusPublisher::getFailedCount, failed + 1);
+        assertThat(attempts.get(), is(1));
+        assertThat(GitLabCommitStatusPublisher.getRetryCount(), is(retried));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertThat(latch.await(30, TimeUnit.SECONDS), is(true));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(30);
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static void awaitCount(LongSupplier count, long expected) throws InterruptedException {
+        await(() -> count.getAsLong() >= expected);
+        assertThat(count.getAsLong(), is(expected));
+    }
+}
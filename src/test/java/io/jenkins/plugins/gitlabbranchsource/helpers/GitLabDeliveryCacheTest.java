@@ -0,0 +1,98 @@
+package io.jenkins.plugins.gitlabbranchsource.helpers;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.startsWith;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class GitLabDeliveryCacheTest {
+
+    private long windowMillis;
+
+    private int maxEntries;
+
+    @Before
+    public void setUp() {
+        windowMillis = GitLabDeliveryCache.WINDOW_MILLIS;
+        maxEntries = GitLabDeliveryCache.MAX_ENTRIES;
+        GitLabDeliveryCache.invalidateAll();
+    }
+
+    @After
+    public void tearDown() {
+        GitLabDeliveryCache.WINDOW_MILLIS = windowMillis;
+        GitLabDeliveryCache.MAX_ENTRIES = maxEntries;
+        GitLabDeliveryCache.invalidateAll();
+    }
+
+    @Test
+    public void redeliveredUuidIsDuplicate() {
+        long duplicates = GitLabDeliveryCache.getDuplicateCount();
+        String key = GitLabDeliveryCache.getKey("uuid-1", "Push Hook", "{}".getBytes(UTF_8));
+        // GitLab keeps the UUID when redelivering, whatever the body
+        String redelivery = GitLabDeliveryCache.getKey("uuid-1", "Push Hook", "{ }".getBytes(UTF_8));
+
+        assertThat(redelivery, is(key));
+        assertThat(GitLabDeliveryCache.accept(key), is(true));
+        assertThat(GitLabDeliveryCache.accept(redelivery), is(false));
+        assertThat(GitLabDeliveryCache.accept(GitLabDeliveryCache.getKey("uuid-2", "Push Hook", "{}".getBytes(UTF_8))),
+                is(true));
+        assertThat(GitLabDeliveryCache.getDuplicateCount(), is(duplicates + 1));
+    }
+
+    @Test
+    public void bodyDigestIsUsedWithoutUuid() {
+        byte[] body = "{\"object_kind\":\"push\"}".getBytes(UTF_8);
+        String key = GitLabDeliveryCache.getKey(null, "Push Hook", body);
+
+        assertThat(key, startsWith("body:Push Hook:"));
+        assertThat(GitLabDeliveryCache.getKey("", "Push Hook", body), is(key));
+        assertThat(GitLabDeliveryCache.getKey(null, "Tag Push Hook", body), is(not(key)));
+        assertThat(
+                GitLabDeliveryCache.getKey(null, "Push Hook", "{\"object_kind\":\"tag_push\"}".getBytes(UTF_8)),
+                is(not(key)));
+        assertThat(GitLabDeliveryCache.accept(key), is(true));
+        assertThat(GitLabDeliveryCache.accept(GitLabDeliveryCache.getKey(null, "Push Hook", body.clone())), is(false));
+    }
+
+    @Test
+    public void forgottenDeliveryIsAcceptedAgain() {
+        // what the web hook action does when its queue rejects the delivery with a 503
+        String key = GitLabDeliveryCache.getKey("uuid-1", "Push Hook", new byte[0]);
+        assertThat(GitLabDeliveryCache.accept(key), is(true));
+        GitLabDeliveryCache.forget(key);
+
+        assertThat(GitLabDeliveryCache.accept(key), is(true));
+        assertThat(GitLabDeliveryCache.accept(key), is(false));
+    }
+
+    @Test
+    public void expiredDeliveryIsAcceptedAgain() throws Exception {
+        GitLabDeliveryCache.WINDOW_MILLIS = 1;
+        assertThat(GitLabDeliveryCache.accept("uuid:1"), is(true));
+        Thread.sleep(5);
+
+        assertThat(GitLabDeliveryCache.accept("uuid:1"), is(true));
+    }
+
+    @Test
+    public void oldestDeliveryIsEvictedAtCapacity() throws Exception {
+        GitLabDeliveryCache.MAX_ENTRIES = 2;
+        assertThat(GitLabDeliveryCache.accept("uuid:1"), is(true));
+        Thread.sleep(5);
+        assertThat(GitLabDeliveryCache.accept("uuid:2"), is(true));
+        Thread.sleep(5);
+        assertThat(GitLabDeliveryCache.accept("uuid:3"), is(true));
+
+        assertThat(GitLabDeliveryCache.size(), is(2));
+        assertThat(GitLabDeliveryCache.accept("uuid:3"), is(false));
+        assertThat(GitLabDeliveryCache.accept("uuid:2"), is(false));
+        // the oldest was evicted, so it is not considered a duplicate anymore
+        assertThat(GitLabDeliveryCache.accept("uuid:1"), is(true));
+    }
+}
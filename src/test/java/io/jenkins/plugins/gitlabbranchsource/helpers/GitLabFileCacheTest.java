@@ -0,0 +1,151 @@
+package io.jenkins.plugins.gitlabbranchsource.helpers;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import jenkins.scm.api.SCMFile;
+import org.gitlab4j.api.GitLabApi;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.mockito.Mockito;
+
+public class GitLabFileCacheTest {
+
+    private static final String COMMIT = "0123456789abcdef0123456789abcdef01234567";
+
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    private long maxSizeBytes;
+    private int maxEntries;
+    private int maxFileBytes;
+
+    @Before
+    public void setUp() {
+        maxSizeBytes = GitLabFileCache.MAX_SIZE_BYTES;
+        maxEntries = GitLabFileCache.MAX_ENTRIES;
+        maxFileBytes = GitLabFileCache.MAX_FILE_BYTES;
+        // every test has its own Jenkins home
+        GitLabFileCache.unload();
+    }
+
+    @After
+    public void tearDown() {
+        GitLabFileCache.MAX_SIZE_BYTES = maxSizeBytes;
+        GitLabFileCache.MAX_ENTRIES = maxEntries;
+        GitLabFileCache.MAX_FILE_BYTES = maxFileBytes;
+        GitLabFileCache.unload();
+    }
+
+    @Test
+    public void onlyFilesReadAtACommitHaveAKey() {
+        GitLabApi gitLabApi = Mockito.mock(GitLabApi.class);
+        Mockito.when(gitLabApi.getGitLabServerUrl()).thenReturn("https://gitlab.example.com");
+        Mockito.when(gitLabApi.getAuthToken()).thenReturn("token");
+        assertThat(GitLabFileCache.getKey(gitLabApi, "group/project", COMMIT, "Jenkinsfile"), is(notNullValue()));
+        assertThat(GitLabFileCache.getKey(gitLabApi, "group/project", "main", "Jenkinsfile"), is(nullValue()));
+        assertThat(GitLabFileCache.getKey(gitLabApi, "group/project", null, "Jenkinsfile"), is(nullValue()));
+    }
+
+    @Test
+    public void typesAndContentsAreCached() throws IOException {
+        long hits = GitLabFileCache.getHitCount();
+        long misses = GitLabFileCache.getMissCount();
+        assertThat(GitLabFileCache.getType("a"), is(nullValue()));
+        assertThat(GitLabFileCache.getMissCount(), is(misses + 1));
+
+        GitLabFileCache.putType("a", SCMFile.Type.REGULAR_FILE);
+        assertThat(GitLabFileCache.getType("a"), is(SCMFile.Type.REGULAR_FILE));
+        assertThat(GitLabFileCache.getHitCount(), is(hits + 1));
+
+        try (InputStream in = GitLabFileCache.putContent("a", stream("pipeline {}"))) {
+            assertThat(read(in), is("pipeline {}"));
+        }
+        try (InputStream in = GitLabFileCache.getContent("a")) {
+            assertThat(read(in), is("pipeline {}"));
+        }
+        assertThat(GitLabFileCache.getSize(), is((long) ("REGULAR_FILE".length() + "pipeline {}".length())));
+        assertThat(GitLabFileCache.getType(null), is(nullValue()));
+    }
+
+    @Test
+    public void largeContentsAreNotCached() throws IOException {
+        GitLabFileCache.MAX_FILE_BYTES = 4;
+        try (InputStream in = GitLabFileCache.putContent("a", stream("pipeline {}"))) {
+            assertThat(read(in), is("pipeline {}"));
+        }
+        assertThat(GitLabFileCache.getContent("a"), is(nullValue()));
+    }
+
+    @Test
+    public void leastRecentlyUsedEntriesAreEvictedBeyondTheEntryCount() {
+        GitLabFileCache.MAX_ENTRIES = 2;
+        GitLabFileCache.putType("a", SCMFile.Type.REGULAR_FILE);
+        GitLabFileCache.putType("b", SCMFile.Type.DIRECTORY);
+        assertThat(GitLabFileCache.getType("a"), is(SCMFile.Type.REGULAR_FILE));
+        GitLabFileCache.putType("c", SCMFile.Type.NONEXISTENT);
+
+        assertThat(GitLabFileCache.getType("b"), is(nullValue()));
+        assertThat(new File(getDirectory(), "b.type").exists(), is(false));
+        assertThat(GitLabFileCache.getType("a"), is(SCMFile.Type.REGULAR_FILE));
+        assertThat(GitLabFileCache.getType("c"), is(SCMFile.Type.NONEXISTENT));
+    }
+
+    @Test
+    public void leastRecentlyUsedEntriesAreEvictedBeyondTheSize() {
+        GitLabFileCache.MAX_SIZE_BYTES = "DIRECTORY".length() * 2;
+        GitLabFileCache.putType("a", SCMFile.Type.DIRECTORY);
+        GitLabFileCache.putType("b", SCMFile.Type.DIRECTORY);
+        GitLabFileCache.putType("c", SCMFile.Type.DIRECTORY);
+
+        assertThat(GitLabFileCache.getType("a"), is(nullValue()));
+        assertThat(GitLabFileCache.getType("b"), is(SCMFile.Type.DIRECTORY));
+        assertThat(GitLabFileCache.getType("c"), is(SCMFile.Type.DIRECTORY));
+        assertThat(GitLabFileCache.getSize(), is((long) "DIRECTORY".length() * 2));
+    }
+
+    @Test
+    public void indexIsLoadedFromDisk() throws IOException {
+        GitLabFileCache.putType("a", SCMFile.Type.REGULAR_FILE);
+        GitLabFileCache.putType("b", SCMFile.Type.DIRECTORY);
+        GitLabFileCache.putType("c", SCMFile.Type.LINK);
+        long now = System.currentTimeMillis();
+        // the modification time is the order of use across restarts
+        assertThat(new File(getDirectory(), "b.type").setLastModified(now - 30000), is(true));
+        assertThat(new File(getDirectory(), "a.type").setLastModified(now - 20000), is(true));
+        assertThat(new File(getDirectory(), "c.type").setLastModified(now - 10000), is(true));
+        File leftover = new File(getDirectory(), "d.type123.tmp");
+        assertThat(leftover.createNewFile(), is(true));
+
+        GitLabFileCache.unload();
+        GitLabFileCache.MAX_ENTRIES = 2;
+
+        assertThat(GitLabFileCache.getType("a"), is(SCMFile.Type.REGULAR_FILE));
+        assertThat(GitLabFileCache.getType("b"), is(nullValue()));
+        assertThat(GitLabFileCache.getType("c"), is(SCMFile.Type.LINK));
+        assertThat(leftover.exists(), is(false));
+        assertThat(GitLabFileCache.getSize(), is((long) ("REGULAR_FILE".length() + "LINK".length())));
+    }
+
+    private File getDirectory() {
+        return new File(j.jenkins.getRootDir(), "caches/gitlab-branch-source-files");
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(UTF_8));
+    }
+
+    private static String read(InputStream in) throws IOException {
+        return new String(in.readAllBytes(), UTF_8);
+    }
+}
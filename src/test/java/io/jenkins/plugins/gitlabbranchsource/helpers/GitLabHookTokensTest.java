@@ -0,0 +1,112 @@
+package io.jenkins.plugins.gitlabbranchsource.helpers;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+import com.cloudbees.plugins.credentials.CredentialsScope;
+import com.cloudbees.plugins.credentials.SystemCredentialsProvider;
+import hudson.util.Secret;
+import io.jenkins.plugins.gitlabserverconfig.servers.GitLabServer;
+import io.jenkins.plugins.gitlabserverconfig.servers.GitLabServers;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.jenkinsci.plugins.plaincredentials.impl.StringCredentialsImpl;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+public class GitLabHookTokensTest {
+
+    @ClassRule
+    public static JenkinsRule j = new JenkinsRule();
+
+    private long ttlMillis;
+
+    @Before
+    public void setUp() throws Exception {
+        ttlMillis = GitLabHookTokens.TTL_MILLIS;
+        SystemCredentialsProvider credentials = SystemCredentialsProvider.getInstance();
+        credentials.getCredentials().clear();
+        credentials.getCredentials().add(secret("first-secret", "s3cret"));
+        credentials.getCredentials().add(secret("second-secret", "other"));
+        credentials.save();
+        GitLabServer first = new GitLabServer("https://first.example.com", "first", "");
+        first.setWebhookSecretCredentialsId("first-secret");
+        GitLabServer second = new GitLabServer("https://second.example.com", "second", "");
+        second.setWebhookSecretCredentialsId("second-secret");
+        GitLabServer open = new GitLabServer("https://open.example.com", "open", "");
+        GitLabServers.get().setServers(Arrays.asList(first, second, open));
+    }
+
+    @After
+    public void tearDown() {
+        GitLabHookTokens.TTL_MILLIS = ttlMillis;
+        GitLabHookTokens.invalidateAll();
+    }
+
+    @Test
+    public void tokenMatchesTheServersWithTheSecret() {
+        assertThat(getServers("s3cret"), contains("first"));
+        assertThat(getServers("other"), contains("second"));
+    }
+
+    @Test
+    public void wrongTokenMatchesNoServer() {
+        assertThat(getServers("S3CRET"), is(empty()));
+        assertThat(getServers("s3cret "), is(empty()));
+        assertThat(getServers(""), is(empty()));
+    }
+
+    @Test
+    public void missingTokenOnlyMatchesServersWithoutSecret() {
+        assertThat(getServers(null), contains("open"));
+    }
+
+    @Test
+    public void savedCredentialsAreLookedUpAgain() throws Exception {
+        assertThat(getServers("s3cret"), contains("first"));
+
+        SystemCredentialsProvider credentials = SystemCredentialsProvider.getInstance();
+        credentials.getCredentials().removeIf(c -> c instanceof StringCredentialsImpl
+                && ((StringCredentialsImpl) c).getId().equals("first-secret"));
+        credentials.getCredentials().add(secret("first-secret", "rotated"));
+        credentials.save();
+
+        assertThat(getServers("s3cret"), is(empty()));
+        assertThat(getServers("rotated"), contains("first"));
+    }
+
+    @Test
+    public void tableIsRebuiltOnceExpired() throws Exception {
+        GitLabHookTokens.TTL_MILLIS = Long.MAX_VALUE;
+        assertThat(getServers("s3cret"), contains("first"));
+
+        // as another credentials provider would, without saving the system credentials
+        SystemCredentialsProvider credentials = SystemCredentialsProvider.getInstance();
+        credentials.getCredentials().removeIf(c -> c instanceof StringCredentialsImpl
+                && ((StringCredentialsImpl) c).getId().equals("first-secret"));
+        credentials.getCredentials().add(secret("first-secret", "rotated"));
+        assertThat(getServers("s3cret"), contains("first"));
+        assertThat(getServers("rotated"), is(empty()));
+
+        GitLabHookTokens.TTL_MILLIS = 1;
+        Thread.sleep(5);
+        assertThat(getServers("s3cret"), is(empty()));
+        assertThat(getServers("rotated"), contains("first"));
+    }
+
+    private static StringCredentialsImpl secret(String id, String value) {
+        return new StringCredentialsImpl(CredentialsScope.GLOBAL, id, null, Secret.fromString(value));
+    }
+
+    private static List<String> getServers(String secretToken) {
+        return GitLabHookTokens.getServers(secretToken).stream()
+                .map(GitLabServer::getName)
+                .collect(Collectors.toList());
+    }
+}
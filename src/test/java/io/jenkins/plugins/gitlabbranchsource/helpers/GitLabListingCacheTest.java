@@ -0,0 +1,133 @@
+package io.jenkins.plugins.gitlabbranchsource.helpers;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import org.gitlab4j.api.models.Branch;
+import org.gitlab4j.api.models.Commit;
+import org.gitlab4j.api.models.Tag;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class GitLabListingCacheTest {
+
+    private static final String SERVER = "default";
+
+    private long ttlMillis;
+
+    @Before
+    public void setUp() {
+        ttlMillis = GitLabListingCache.TTL_MILLIS;
+        GitLabListingCache.invalidateAll();
+    }
+
+    @After
+    public void tearDown() {
+        GitLabListingCache.TTL_MILLIS = ttlMillis;
+        GitLabListingCache.invalidateAll();
+    }
+
+    @Test
+    public void completeListingIsReusedWhileNotModified() {
+        long hits = GitLabListingCache.getHitCount();
+        record(1L, "100");
+
+        GitLabListingCache.Listing listing = GitLabListingCache.get(SERVER, 1L, "100");
+        assertThat(listing, is(notNullValue()));
+        assertThat(GitLabListingCache.getHitCount(), is(hits + 1));
+        List<Branch> branches = listing.getBranches();
+        assertThat(branches.size(), is(2));
+        assertThat(branches.get(0).getName(), is("main"));
+        assertThat(branches.get(0).getCommit().getId(), is("aaa"));
+        assertThat(branches.get(0).getCommit().getCommittedDate(), is(new Date(1000)));
+        assertThat(branches.get(1).getName(), is("feature"));
+        assertThat(branches.get(1).getCommit().getCommittedDate(), is(nullValue()));
+        List<Tag> tags = listing.getTags();
+        assertThat(tags.size(), is(1));
+        assertThat(tags.get(0).getName(), is("v1"));
+        assertThat(tags.get(0).getCommit().getId(), is("ccc"));
+    }
+
+    @Test
+    public void unknownProjectIsAMiss() {
+        long misses = GitLabListingCache.getMissCount();
+        record(1L, "100");
+
+        assertThat(GitLabListingCache.get(SERVER, 2L, "100"), is(nullValue()));
+        assertThat(GitLabListingCache.get("other", 1L, "100"), is(nullValue()));
+        assertThat(GitLabListingCache.getMissCount(), is(misses + 2));
+    }
+
+    @Test
+    public void modifiedProjectIsAMiss() {
+        record(1L, "100");
+
+        assertThat(GitLabListingCache.get(SERVER, 1L, "200"), is(nullValue()));
+        // the stale listing is dropped
+        assertThat(GitLabListingCache.size(), is(0));
+        assertThat(GitLabListingCache.get(SERVER, 1L, "100"), is(nullValue()));
+    }
+
+    @Test
+    public void listingExpires() throws InterruptedException {
+        GitLabListingCache.TTL_MILLIS = 50;
+        record(1L, "100");
+        assertThat(GitLabListingCache.get(SERVER, 1L, "100"), is(notNullValue()));
+
+        Thread.sleep(100);
+        assertThat(GitLabListingCache.get(SERVER, 1L, "100"), is(nullValue()));
+    }
+
+    @Test
+    public void partialListingIsNotCached() {
+        GitLabListingCache.Recorder recorder = GitLabListingCache.record(SERVER, 1L, "100", true, true);
+        recorder.addBranches(Arrays.asList(branch("main", "aaa", 1000L)));
+        recorder.branchesListed();
+        // the tags were never listed completely
+
+        assertThat(GitLabListingCache.get(SERVER, 1L, "100"), is(nullValue()));
+    }
+
+    @Test
+    public void invalidatedProjectIsAMiss() {
+        record(1L, "100");
+        record(2L, "100");
+
+        GitLabListingCache.invalidate(1L);
+        assertThat(GitLabListingCache.get(SERVER, 1L, "100"), is(nullValue()));
+        assertThat(GitLabListingCache.get(SERVER, 2L, "100"), is(notNullValue()));
+    }
+
+    private static void record(Long projectId, String validator) {
+        GitLabListingCache.Recorder recorder = GitLabListingCache.record(SERVER, projectId, validator, true, true);
+        recorder.addBranches(Arrays.asList(branch("main", "aaa", 1000L), branch("feature", "bbb", null)));
+        recorder.branchesListed();
+        Tag tag = new Tag();
+        tag.setName("v1");
+        tag.setCommit(commit("ccc", null));
+        recorder.addTags(Arrays.asList(tag));
+        recorder.tagsListed();
+    }
+
+    private static Branch branch(String name, String sha, Long committedDate) {
+        Branch branch = new Branch();
+        branch.setName(name);
+        branch.setCommit(commit(sha, committedDate));
+        return branch;
+    }
+
+    private static Commit commit(String sha, Long committedDate) {
+        Commit commit = new Commit();
+        commit.setId(sha);
+        if (committedDate != null) {
+            commit.setCommittedDate(new Date(committedDate));
+        }
+        return commit;
+    }
+}
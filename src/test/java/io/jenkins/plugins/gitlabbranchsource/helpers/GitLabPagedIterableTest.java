@@ -0,0 +1,138 @@
+package io.jenkins.plugins.gitlabbranchsource.helpers;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThrows;
+
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.gitlab4j.api.GitLabApiException;
+import org.gitlab4j.api.Pager;
+import org.gitlab4j.api.models.Branch;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class GitLabPagedIterableTest {
+
+    @Before
+    public void setUp() {
+        GitLabListingCache.invalidateAll();
+    }
+
+    @After
+    public void tearDown() {
+        GitLabListingCache.invalidateAll();
+    }
+
+    @Test
+    public void stoppingEarlyDoesNotFetchFurtherPages() {
+        Pager<Branch> pager = pager(page("a", "b"), page("c", "d"), page("e"));
+        GitLabPagedIterable<Branch> branches = new GitLabPagedIterable<>(pager);
+        for (Branch branch : branches) {
+            if (branch.getName().equals("b")) {
+                break;
+            }
+        }
+        Mockito.verify(pager, Mockito.times(1)).next();
+    }
+
+    @Test
+    public void closingStopsTheIteration() {
+        Pager<Branch> pager = pager(page("a"), page("b"));
+        GitLabPagedIterable<Branch> branches = new GitLabPagedIterable<>(pager);
+        Iterator<Branch> it = branches.iterator();
+        assertThat(it.next().getName(), is("a"));
+        branches.close();
+        assertThat(it.hasNext(), is(false));
+        Mockito.verify(pager, Mockito.times(1)).next();
+    }
+
+    @Test
+    public void onlyAFullIterationIsRecorded() {
+        AtomicInteger exhausted = new AtomicInteger();
+        GitLabListingCache.Recorder partial = GitLabListingCache.record("default", 1L, "100", true, false);
+        GitLabPagedIterable<Branch> branches = new GitLabPagedIterable<>(pager(page("a", "b"), page("c")))
+                .onPage(partial::addBranches)
+                .onExhausted(() -> {
+                    exhausted.incrementAndGet();
+                    partial.branchesListed();
+                });
+        for (Branch branch : branches) {
+            if (branch.getName().equals("c")) {
+                break;
+            }
+        }
+        // the last item was consumed but the end of the listing was never reached
+        assertThat(exhausted.get(), is(0));
+        assertThat(GitLabListingCache.get("default", 1L, "100"), is(nullValue()));
+
+        GitLabListingCache.Recorder full = GitLabListingCache.record("default", 1L, "100", true, false);
+        List<String> names = new ArrayList<>();
+        branches = new GitLabPagedIterable<>(pager(page("a", "b"), page("c")))
+                .onPage(full::addBranches)
+                .onExhausted(() -> {
+                    exhausted.incrementAndGet();
+                    full.branchesListed();
+                });
+        for (Branch branch : branches) {
+            names.add(branch.getName());
+        }
+        assertThat(names, is(Arrays.asList("a", "b", "c")));
+        assertThat(exhausted.get(), is(1));
+        GitLabListingCache.Listing listing = GitLabListingCache.get("default", 1L, "100");
+        assertThat(listing, is(notNullValue()));
+        assertThat(listing.getBranches().size(), is(3));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void failureToFetchALaterPageIsUnchecked() {
+        Pager<Branch> pager = Mockito.mock(Pager.class);
+        Mockito.when(pager.hasNext()).thenReturn(true);
+        Mockito.when(pager.next())
+                .thenReturn(page("a"))
+                .thenThrow(new RuntimeException(new GitLabApiException("Internal Server Error", 500)));
+        Iterator<Branch> it = new GitLabPagedIterable<>(pager).iterator();
+        assertThat(it.next().getName(), is("a"));
+
+        UncheckedIOException e = assertThrows(UncheckedIOException.class, it::hasNext);
+        assertThat(e.getCause().getCause(), is(instanceOf(GitLabApiException.class)));
+        assertThat(((GitLabApiException) e.getCause().getCause()).getHttpStatus(), is(500));
+    }
+
+    @Test
+    public void canOnlyBeIteratedOnce() {
+        GitLabPagedIterable<Branch> branches = new GitLabPagedIterable<>(pager(page("a")));
+        branches.iterator();
+        assertThrows(IllegalStateException.class, branches::iterator);
+    }
+
+    @SafeVarargs
+    @SuppressWarnings("unchecked")
+    private static Pager<Branch> pager(List<Branch>... pages) {
+        Pager<Branch> pager = Mockito.mock(Pager.class);
+        AtomicInteger fetched = new AtomicInteger();
+        Mockito.when(pager.hasNext()).thenAnswer(invocation -> fetched.get() < pages.length);
+        Mockito.when(pager.next()).thenAnswer(invocation -> pages[fetched.getAndIncrement()]);
+        return pager;
+    }
+
+    private static List<Branch> page(String... names) {
+        List<Branch> page = new ArrayList<>();
+        for (String name : names) {
+            Branch branch = new Branch();
+            branch.setName(name);
+            page.add(branch);
+        }
+        return page;
+    }
+}
@@ -0,0 +1,134 @@
+package io.jenkins.plugins.gitlabbranchsource.helpers;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThrows;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import org.gitlab4j.api.GitLabApiException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestName;
+
+public class GitLabRateLimiterTest {
+
+    @Rule
+    public TestName name = new TestName();
+
+    private double ratePerSecond;
+    private long retryDelayMillis;
+
+    @Before
+    public void setUp() {
+        ratePerSecond = GitLabRateLimiter.RATE_PER_SECOND;
+        retryDelayMillis = GitLabRateLimiter.RETRY_DELAY_MILLIS;
+        GitLabRateLimiter.RETRY_DELAY_MILLIS = 1;
+    }
+
+    @After
+    public void tearDown() {
+        GitLabRateLimiter.RATE_PER_SECOND = ratePerSecond;
+        GitLabRateLimiter.RETRY_DELAY_MILLIS = retryDelayMillis;
+    }
+
+    @Test
+    public void callsAreNotPacedUntilRateLimited() {
+        GitLabRateLimiter limiter = newLimiter();
+        assertThat(limiter.getRate(), is(Double.POSITIVE_INFINITY));
+        for (int i = 0; i < 100; i++) {
+            limiter.acquire();
+        }
+        assertThat(limiter.getThrottledCount(), is(0L));
+    }
+
+    @Test
+    public void rateLimitedCallsStartPacingAtHalfTheRate() {
+        GitLabRateLimiter limiter = newLimiter();
+        for (int i = 0; i < 10; i++) {
+            limiter.acquire();
+        }
+        limiter.onRateLimited();
+        assertThat(limiter.getRate(), is(5.0));
+        limiter.onRateLimited();
+        assertThat(limiter.getRate(), is(2.5));
+        assertThat(limiter.getRateLimitedCount(), is(2L));
+    }
+
+    @Test
+    public void successfulCallsStopPacing() {
+        GitLabRateLimiter limiter = newLimiter();
+        for (int i = 0; i < 10; i++) {
+            limiter.acquire();
+        }
+        limiter.onRateLimited();
+        for (int i = 0; i < 20; i++) {
+            limiter.onSuccess();
+        }
+        assertThat(limiter.getRate() < 10, is(true));
+        // each success recovers a fiftieth of the rate calls were made at
+        for (int i = 0; i < 6; i++) {
+            limiter.onSuccess();
+        }
+        assertThat(limiter.getRate(), is(Double.POSITIVE_INFINITY));
+    }
+
+    @Test
+    public void fixedRateIsTheCeiling() {
+        GitLabRateLimiter.RATE_PER_SECOND = 4;
+        GitLabRateLimiter limiter = newLimiter();
+        assertThat(limiter.getRate(), is(4.0));
+        limiter.onRateLimited();
+        assertThat(limiter.getRate(), is(2.0));
+        for (int i = 0; i < 30; i++) {
+            limiter.onSuccess();
+        }
+        assertThat(limiter.getRate(), is(4.0));
+    }
+
+    @Test
+    public void rateLimitedCallsAreRetried() throws GitLabApiException {
+        GitLabRateLimiter limiter = newLimiter();
+        AtomicInteger attempts = new AtomicInteger();
+        String result = limiter.call(() -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new GitLabApiException("Too Many Requests", 429);
+            }
+            return "ok";
+        });
+        assertThat(result, is("ok"));
+        assertThat(attempts.get(), is(3));
+        assertThat(limiter.getRateLimitedCount(), is(2L));
+    }
+
+    @Test
+    public void otherFailuresAreNotRetried() {
+        GitLabRateLimiter limiter = newLimiter();
+        AtomicInteger attempts = new AtomicInteger();
+        GitLabApiException e = assertThrows(GitLabApiException.class, () -> limiter.call(() -> {
+            attempts.incrementAndGet();
+            throw new GitLabApiException("Not Found", 404);
+        }));
+        assertThat(e.getHttpStatus(), is(404));
+        assertThat(attempts.get(), is(1));
+    }
+
+    @Test
+    public void callOnceDoesNotRetry() {
+        GitLabRateLimiter limiter = newLimiter();
+        AtomicInteger attempts = new AtomicInteger();
+        GitLabApiException e = assertThrows(GitLabApiException.class, () -> limiter.callOnce(() -> {
+            attempts.incrementAndGet();
+            throw new GitLabApiException("Too Many Requests", 429);
+        }));
+        assertThat(e.getHttpStatus(), is(429));
+        assertThat(attempts.get(), is(1));
+        assertThat(limiter.getRateLimitedCount(), is(1L));
+    }
+
+    private GitLabRateLimiter newLimiter() {
+        // limiters are shared by server, each test uses its own
+        return GitLabRateLimiter.get("https://" + name.getMethodName() + ".example.com");
+    }
+}
@@ -41,6 +41,9 @@ public class ConfigurationAsCodeTest {
         assertThat(server.isManageWebHooks(), is(true));
         assertThat(server.isManageSystemHooks(), is(true));
         assertThat(server.getHooksRootUrl(), is("https://jenkins.intranet/"));
+        assertThat(server.getConnectTimeout(), is(5));
+        assertThat(server.getReadTimeout(), is(30));
+        assertThat(server.getMaxConnectionsPerRoute(), is(8));
 
         List<PersonalAccessTokenImpl> personalCredentials = CredentialsProvider.lookupCredentials(
                 PersonalAccessTokenImpl.class, j.jenkins, ACL.SYSTEM, Collections.emptyList());
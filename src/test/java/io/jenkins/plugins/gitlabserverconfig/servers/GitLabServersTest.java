@@ -6,6 +6,7 @@ import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
 
 import com.cloudbees.plugins.credentials.Credentials;
 import com.cloudbees.plugins.credentials.CredentialsMatchers;
@@ -59,6 +60,25 @@ public class GitLabServersTest {
                 logger.getMessages(), not(hasItem(containsString("Trouble loading " + GitLabServers.class.getName()))));
     }
 
+    @Test
+    public void findServerByUrl() {
+        GitLabServers servers = GitLabServers.get();
+        servers.setServers(List.of(
+                new GitLabServer("https://gitlab.example.com", "root", ""),
+                new GitLabServer("https://gitlab.example.com/nested/", "nested", "")));
+        assertThat(servers.findServer("nested").getServerUrl(), equalTo("https://gitlab.example.com/nested/"));
+        assertThat(servers.findServer("missing"), nullValue());
+        assertThat(
+                servers.findServerByUrl("https://gitlab.example.com/nested/group/project")
+                        .getName(),
+                equalTo("nested"));
+        assertThat(
+                servers.findServerByUrl("https://gitlab.example.com/nestedgroup/project")
+                        .getName(),
+                equalTo("root"));
+        assertThat(servers.findServerByUrl("https://gitlab.example.org/group/project"), nullValue());
+    }
+
     @TestExtension("migrationToCredentials")
     public static class CredentialsProviderThatRequiresDescriptorLookup extends CredentialsProvider {
         @Override